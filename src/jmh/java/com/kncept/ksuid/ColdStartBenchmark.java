@@ -0,0 +1,29 @@
+package com.kncept.ksuid;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to the first Ksuid in a fresh JVM - class loading, static initialization and seeding the SecureRandom.<br/>
+ * Each fork measures a single call, as a serverless function would see it.
+ * Run with <pre>gradlew jmhColdStart</pre> - the plain jmh task excludes it, as its settings would replace these annotations.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(20)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+public class ColdStartBenchmark {
+
+    @Benchmark
+    public String firstKsuid() {
+        return new Ksuid().toString();
+    }
+}
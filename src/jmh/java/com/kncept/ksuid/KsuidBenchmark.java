@@ -0,0 +1,87 @@
+package com.kncept.ksuid;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Throughput (and allocation, via the gc profiler) of the main Ksuid operations.<br/>
+ * Run with <pre>gradlew jmh</pre>
+ */
+@State(Scope.Benchmark)
+public class KsuidBenchmark {
+
+    private Ksuid ksuid;
+    private Ksuid equalKsuid;
+    private String base62;
+    private String base16;
+    private final char[] chars = new char[Ksuid.base62Length];
+
+    @Setup
+    public void setup() {
+        ksuid = new Ksuid("0ujtsYcgvSTl8PAuAdqWYSMnLOv");
+        equalKsuid = new Ksuid("0ujtsYcgvSTl8PAuAdqWYSMnLOv");
+        base62 = ksuid.toBase62();
+        base16 = ksuid.toBase16();
+    }
+
+    @Benchmark
+    public Ksuid generate() {
+        return new Ksuid();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(KsuidGenerator.BATCH_SIZE)
+    public Ksuid[] generateBatch() {
+        return Ksuid.generate(KsuidGenerator.BATCH_SIZE);
+    }
+
+    @Benchmark
+    public Ksuid parseBase62() {
+        return new Ksuid(base62);
+    }
+
+    @Benchmark
+    public Ksuid parseCached() {
+        return Ksuid.parseCached(base62);
+    }
+
+    @Benchmark
+    public Ksuid parseBase16() {
+        return new Ksuid(base16);
+    }
+
+    // a new instance each time - ksuid has its base62 form cached (it was parsed from it)
+    @Benchmark
+    public String toBase62() {
+        return new Ksuid(ksuid.getRawKsuidEpoch(), ksuid.entropyHigh(), ksuid.entropyLow()).toBase62();
+    }
+
+    @Benchmark
+    public char[] toBase62Chars() {
+        ksuid.toBase62(chars, 0);
+        return chars;
+    }
+
+    @Benchmark
+    public String toBase62Cached() {
+        return ksuid.toBase62();
+    }
+
+    @Benchmark
+    public String toBase16() {
+        return ksuid.toBase16();
+    }
+
+    @Benchmark
+    public boolean equalsKsuid() {
+        return ksuid.equals(equalKsuid);
+    }
+
+    @Benchmark
+    public int hashCodeKsuid() {
+        return ksuid.hashCode();
+    }
+}
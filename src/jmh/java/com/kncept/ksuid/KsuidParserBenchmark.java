@@ -0,0 +1,40 @@
+package com.kncept.ksuid;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Bulk parsing of a million base62 strings - a sequential loop against {@link KsuidParser} on the common pool.<br/>
+ * Scores are per Ksuid.
+ */
+@State(Scope.Benchmark)
+public class KsuidParserBenchmark {
+    private static final int COUNT = 1_000_000;
+
+    private String[] values;
+
+    @Setup
+    public void setup() {
+        values = new String[COUNT];
+        Ksuid[] ksuids = Ksuid.generate(COUNT);
+        // new Strings, so the parsed Ksuids don't already have their base62 form
+        for(int i = 0; i < COUNT; i++) values[i] = new String(ksuids[i].toBase62().toCharArray());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public Ksuid[] sequential() {
+        Ksuid[] ksuids = new Ksuid[COUNT];
+        for(int i = 0; i < COUNT; i++) ksuids[i] = new Ksuid(values[i]);
+        return ksuids;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public KsuidParser.Result parallel() {
+        return KsuidParser.parse(values);
+    }
+}
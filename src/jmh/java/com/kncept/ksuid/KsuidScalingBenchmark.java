@@ -0,0 +1,147 @@
+package com.kncept.ksuid;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * How concurrent generation scales with threads.<br/>
+ *
+ * The main method runs the benchmarks at 1, 2, 4 .. up to the core count, measuring throughput (all threads combined)
+ * and latency percentiles (SampleTime). Before each thread count it generates from that many threads at once and
+ * fails if any Ksuid is duplicated.<br/>
+ * Run with <pre>gradlew jmhScaling</pre>
+ * (an optional argument caps the thread count).
+ */
+@State(Scope.Benchmark)
+public class KsuidScalingBenchmark {
+    private static final int DUPLICATE_CHECK_PER_THREAD = 200_000;
+    /** caps the duplicate check on machines with many cores (about 60 bytes each while sorting) */
+    private static final int DUPLICATE_CHECK_MAX = 8_000_000;
+
+    private final KsuidGenerator generator = new KsuidGenerator();
+    private final MonotonicKsuidGenerator monotonic = new MonotonicKsuidGenerator();
+
+    @Benchmark
+    public Ksuid newKsuid() {
+        return new Ksuid();
+    }
+
+    @Benchmark
+    public Ksuid generatorNext() {
+        return generator.next();
+    }
+
+    @Benchmark
+    public Ksuid monotonicNext() {
+        return monotonic.next();
+    }
+
+    public static void main(String[] args) throws RunnerException, InterruptedException {
+        int cores = Runtime.getRuntime().availableProcessors();
+        int maxThreads = args.length > 0 ? Integer.parseInt(args[0]) : cores;
+        List<String> rows = new ArrayList<>();
+        for(int threads : threadCounts(maxThreads)) {
+            checkForDuplicates("new Ksuid()", Ksuid::new, threads);
+            MonotonicKsuidGenerator monotonic = new MonotonicKsuidGenerator();
+            checkForDuplicates("MonotonicKsuidGenerator", monotonic::next, threads);
+
+            Options options = new OptionsBuilder()
+                    .include(KsuidScalingBenchmark.class.getName())
+                    .mode(Mode.Throughput)
+                    .mode(Mode.SampleTime)
+                    .timeUnit(TimeUnit.MICROSECONDS)
+                    .threads(threads)
+                    .forks(1)
+                    .warmupIterations(3)
+                    .warmupTime(TimeValue.seconds(1))
+                    .measurementIterations(5)
+                    .measurementTime(TimeValue.seconds(1))
+                    .build();
+            Collection<RunResult> results = new Runner(options).run();
+            for(RunResult result : results) rows.add(row(threads, result));
+        }
+
+        System.out.println();
+        System.out.println(String.format("%-24s %8s %-14s %12s %12s %12s", "benchmark", "threads", "mode", "score", "p99", "p99.9"));
+        rows.forEach(System.out::println);
+    }
+
+    static List<Integer> threadCounts(int maxThreads) {
+        List<Integer> counts = new ArrayList<>();
+        for(int threads = 1; threads < maxThreads; threads <<= 1) counts.add(threads);
+        counts.add(Math.max(1, maxThreads));
+        return counts;
+    }
+
+    private static String row(int threads, RunResult result) {
+        String benchmark = result.getParams().getBenchmark();
+        benchmark = benchmark.substring(benchmark.lastIndexOf('.') + 1);
+        Mode mode = result.getParams().getMode();
+        String score = String.format("%.3f %s", result.getPrimaryResult().getScore(), result.getPrimaryResult().getScoreUnit());
+        if (mode == Mode.SampleTime) {
+            return String.format("%-24s %8d %-14s %12s %12.3f %12.3f", benchmark, threads, mode, score,
+                    result.getPrimaryResult().getStatistics().getPercentile(99),
+                    result.getPrimaryResult().getStatistics().getPercentile(99.9));
+        }
+        return String.format("%-24s %8d %-14s %12s", benchmark, threads, mode, score);
+    }
+
+    /**
+     * Generates from every thread at once, then checks the combined output for duplicates.<br/>
+     * Ksuids are kept packed (20 bytes each), and duplicates are found by sorting rather than with a set,
+     * so the check fits in a modest heap at high thread counts
+     */
+    private static void checkForDuplicates(String name, Supplier<Ksuid> supplier, int threads) throws InterruptedException {
+        int perThread = Math.min(DUPLICATE_CHECK_PER_THREAD, DUPLICATE_CHECK_MAX / threads);
+        KsuidArray[] generated = new KsuidArray[threads];
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] workers = new Thread[threads];
+        for(int t = 0; t < threads; t++) {
+            KsuidArray dest = generated[t] = new KsuidArray(perThread);
+            workers[t] = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for(int i = 0; i < perThread; i++) dest.add(supplier.get());
+            });
+            workers[t].start();
+        }
+        start.countDown();
+        for(Thread worker : workers) worker.join();
+
+        KsuidArray all = new KsuidArray(threads * perThread);
+        for(int t = 0; t < threads; t++) {
+            KsuidArray.Cursor cursor = generated[t].cursor();
+            while (cursor.next()) all.add(cursor.toKsuid());
+            generated[t] = null;
+        }
+        all.sort();
+        int duplicates = 0;
+        Ksuid previous = null;
+        KsuidArray.Cursor cursor = all.cursor();
+        while (cursor.next()) {
+            if (previous != null && cursor.compareTo(previous) == 0) duplicates++;
+            previous = cursor.toKsuid();
+        }
+        System.out.println(name + ": " + (all.size() - duplicates) + " unique from " + threads + " threads, " + duplicates + " duplicates");
+        if (duplicates != 0) throw new IllegalStateException(duplicates + " duplicate Ksuids from " + name + " with " + threads + " threads");
+    }
+}
@@ -0,0 +1,56 @@
+package com.kncept.ksuid;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Random;
+
+/**
+ * Sorting a million shuffled Ksuids - a comparison sort against {@link KsuidSort}'s radix sort,
+ * for both Ksuid[] and {@link KsuidArray}.<br/>
+ * Scores are per Ksuid, and include copying the unsorted input.
+ */
+@State(Scope.Benchmark)
+public class KsuidSortBenchmark {
+    private static final int COUNT = 1_000_000;
+
+    private Ksuid[] shuffled;
+    private KsuidArray packed;
+
+    @Setup
+    public void setup() {
+        shuffled = Ksuid.generate(COUNT);
+        Collections.shuffle(Arrays.asList(shuffled), new Random(1));
+        packed = new KsuidArray(COUNT);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public Ksuid[] comparisonSort() {
+        Ksuid[] ksuids = shuffled.clone();
+        Arrays.sort(ksuids);
+        return ksuids;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public Ksuid[] radixSort() {
+        Ksuid[] ksuids = shuffled.clone();
+        KsuidSort.sort(ksuids);
+        return ksuids;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public KsuidArray packedSort() {
+        packed.clear();
+        for(Ksuid ksuid : shuffled) packed.add(ksuid);
+        packed.sort();
+        return packed;
+    }
+}
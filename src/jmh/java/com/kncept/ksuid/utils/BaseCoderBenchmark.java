@@ -0,0 +1,52 @@
+package com.kncept.ksuid.utils;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+
+/**
+ * Encode and decode throughput of each of the BaseCoder instances.<br/>
+ * The 20 byte payload matches a Ksuid, the larger ones show how each coder scales.
+ */
+@State(Scope.Benchmark)
+public class BaseCoderBenchmark {
+
+    @Param({"base16", "base62", "base64", "base64WithPadding"})
+    public String coder;
+
+    @Param({"20", "256"})
+    public int length;
+
+    private BaseCoder baseCoder;
+    private byte[] raw;
+    private String encoded;
+
+    @Setup
+    public void setup() {
+        switch (coder) {
+            case "base16": baseCoder = BaseCoder.base16Encoder; break;
+            case "base62": baseCoder = BaseCoder.base62Encoder; break;
+            case "base64": baseCoder = BaseCoder.base64Encoder; break;
+            case "base64WithPadding": baseCoder = BaseCoder.base64EncoderWithPadding; break;
+            default: throw new IllegalArgumentException("Unknown coder " + coder);
+        }
+        raw = new byte[length];
+        new Random(length).nextBytes(raw);
+        raw[0] |= 0x80; // no leading zero byte, so the numeric coders encode the full length
+        encoded = baseCoder.encode(raw);
+    }
+
+    @Benchmark
+    public String encode() {
+        return baseCoder.encode(raw);
+    }
+
+    @Benchmark
+    public byte[] decode() {
+        return baseCoder.decode(encoded);
+    }
+}
@@ -0,0 +1,62 @@
+package com.kncept.ksuid;
+
+import java.time.Clock;
+import java.util.function.LongSupplier;
+
+/**
+ * A coarse clock of unix epoch seconds, for {@link KsuidGenerator}.<br/>
+ *
+ * A single daemon thread updates the cached value just after each second boundary,
+ * so reading the time is a volatile read instead of a call to the system clock.<br/>
+ * Close it to stop the ticker thread.
+ */
+public class CachedSecondsClock implements LongSupplier, AutoCloseable {
+    private final Clock clock;
+    private final Thread ticker;
+    private volatile long epochSeconds;
+    private volatile boolean running = true;
+
+    public CachedSecondsClock() {
+        this(Clock.systemUTC());
+    }
+
+    /**
+     * @param clock the underlying clock, read once per second by the ticker thread
+     */
+    public CachedSecondsClock(Clock clock) {
+        if (clock == null) throw new IllegalArgumentException("clock is required");
+        this.clock = clock;
+        epochSeconds = Math.floorDiv(clock.millis(), 1000L);
+        ticker = new Thread(this::tick, "ksuid-cached-seconds-clock");
+        ticker.setDaemon(true);
+        ticker.start();
+    }
+
+    @Override
+    public long getAsLong() {
+        return epochSeconds;
+    }
+
+    private void tick() {
+        while (running) {
+            long millis = clock.millis();
+            epochSeconds = Math.floorDiv(millis, 1000L);
+            try {
+                // wake just after the next second starts
+                Thread.sleep(1000L - Math.floorMod(millis, 1000L) + 1L);
+            } catch (InterruptedException e) {
+                // closed, or spurious - the loop condition decides
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        ticker.interrupt();
+    }
+
+    boolean isTicking() {
+        return ticker.isAlive();
+    }
+}
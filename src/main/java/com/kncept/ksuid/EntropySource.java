@@ -0,0 +1,58 @@
+package com.kncept.ksuid;
+
+import java.security.SecureRandom;
+import java.util.Random;
+
+/**
+ * Supplies the random bytes used as Ksuid entropy.<br/>
+ *
+ * The default is a striped pool of SecureRandoms, so concurrent threads rarely share an instance.<br/>
+ * Use {@link #of(Random)} to supply your own Random or SecureRandom.
+ */
+@FunctionalInterface
+public interface EntropySource {
+
+    /**
+     * Fills the array with random bytes. Must be safe to call from multiple threads.
+     * @param bytes array to fill
+     */
+    void nextBytes(byte[] bytes);
+
+    /**
+     * The shared source used by new Ksuid() - a striped pool sized to the number of cores.<br/>
+     * With -Dcom.kncept.ksuid.prefetchEntropy=true, a shared {@link PrefetchingEntropySource} instead.
+     * @return the default EntropySource
+     */
+    static EntropySource defaultSource() {
+        if (PrefetchingEntropySource.DEFAULT_ENABLED) return PrefetchingEntropySource.shared();
+        return StripedEntropySource.shared();
+    }
+
+    /**
+     * Wraps a single Random. Every thread will share it, so its own locking applies.
+     * @param random source of randomness
+     * @return an EntropySource backed by random
+     */
+    static EntropySource of(Random random) {
+        if (random == null) throw new IllegalArgumentException("random is required");
+        return random::nextBytes;
+    }
+
+    /**
+     * One SecureRandom per thread, created on first use. Contention free, but each new thread pays for seeding.
+     * @return a thread local EntropySource
+     */
+    static EntropySource threadLocal() {
+        ThreadLocal<SecureRandom> randoms = ThreadLocal.withInitial(StripedEntropySource::newSecureRandom);
+        return bytes -> randoms.get().nextBytes(bytes);
+    }
+
+    /**
+     * A fixed pool of SecureRandoms, selected by thread id. Suits large or short lived thread populations.
+     * @param stripes minimum number of SecureRandoms, rounded up to a power of two
+     * @return a striped EntropySource
+     */
+    static EntropySource striped(int stripes) {
+        return new StripedEntropySource(stripes);
+    }
+}
@@ -1,32 +1,48 @@
 package com.kncept.ksuid;
 
-import com.kncept.ksuid.utils.BaseCoder;
 import com.kncept.ksuid.utils.ByteConverter;
 
-import java.security.SecureRandom;
-import java.time.Clock;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.time.Instant;
 import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
-import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Objects;
 
 /**
  * The Main Ksuid class/<br>
  *
  * Create new instances for 'now' timestamps, or pass in a <pre>ZonedDateTime</pre> for a specific point in time.<br>
  * Don't use the (int, byte[]) constructor unless you know what you are doing.<br/>
+ * Use a {@link KsuidGenerator} to control where the entropy comes from.<br/>
  */
-public class Ksuid {
+public class Ksuid implements Comparable<Ksuid> {
     /** Ksuid Epoc is adjusted. Approx. date is 13th May, 2014 */
     public static final int EPOCH_SECONDS = 1400000000;
-    private final byte[] data;
+    // only ever assigned during construction - not final, so that parsing can decode straight into them
+    private int timestamp;
+    private long entropyHigh;
+    private long entropyLow;
+    /**
+     * Lazily cached base62 form. Racy but safe, like String.hashCode - Strings are immutable, so the
+     * worst case is that two threads both encode, and one result wins.
+     */
+    private String base62;
 
-    /** The smallest possible Ksuid = 20 bytes of 0x00 */
-    public static final Ksuid MINIMUM_KSUID = new Ksuid("000000000000000000000000000");
-    /** The largest possible Ksuid = 20 bytes of 0xFF */
-    public static final Ksuid MAXIMUM_KSUID = new Ksuid("aWgEPTl1tmebfsQzFP4bxwgy80V");
+    // class initialization is kept cheap - no parsing, lambdas or SecureRandoms (they are created on first use)
+    /** The smallest possible Ksuid = 20 bytes of 0x00, "000000000000000000000000000" */
+    public static final Ksuid MINIMUM_KSUID = new Ksuid(0, 0L, 0L);
+    /** The largest possible Ksuid = 20 bytes of 0xFF, "aWgEPTl1tmebfsQzFP4bxwgy80V" */
+    public static final Ksuid MAXIMUM_KSUID = new Ksuid(-1, -1L, -1L);
+    /** Orders by the raw 20 bytes (unsigned) - the same order as the encoded strings, so time ordered */
+    public static final Comparator<Ksuid> COMPARATOR = Comparator.naturalOrder();
 
-    private static SecureRandom random = new SecureRandom();
     /** Bytes Length of the timestamp */
     protected static final int tsLength = 4;
     /** Bytes Length of the entropy */
@@ -38,86 +54,371 @@ public class Ksuid {
     /** Encoded Length in base16 */
     protected static final int base16Length = 40;
 
+    /** A new Ksuid for now, from the shared {@link KsuidGenerator} */
     public Ksuid() {
-        data = generateInitialData();
+        KsuidGenerator.shared().init(this);
     }
     public Ksuid(int rawKsuidEpoch, byte[] entropy) {
         if (entropy == null) entropy = generateEntropy();
         if (entropy.length != entropyLength) throw new IllegalArgumentException("Incorrect Entropy");
-        data = join(rawKsuidEpoch, entropy);
+        timestamp = rawKsuidEpoch;
+        entropyHigh = ByteConverter.readLong(entropy, 0);
+        entropyLow = ByteConverter.readLong(entropy, 8);
     }
     public Ksuid(byte[] value) {
         if (value == null) {
-            data = generateInitialData();
-        } else if (value.length == totalLength) {
-            data = new byte[totalLength];
-            System.arraycopy(value, 0, data, 0, totalLength);
-        } else {
-            throw new IllegalArgumentException("Unable to construct a Ksuid");
+            KsuidGenerator.shared().init(this);
+            return;
         }
+        if (value.length != totalLength) throw new IllegalArgumentException("Unable to construct a Ksuid");
+        timestamp = ByteConverter.readInt(value, 0);
+        entropyHigh = ByteConverter.readLong(value, tsLength);
+        entropyLow = ByteConverter.readLong(value, tsLength + 8);
     }
     public Ksuid(String value) {
         if (value == null || value.equals("")) {
-            data = generateInitialData();
-        } else if (value.length() == base62Length) {
-            data = unpackMinimalArray(BaseCoder.base62Encoder.decode(value));
-        } else if (value.length() == base16Length) {
-            data = unpackMinimalArray(BaseCoder.base16Encoder.decode(value));
+            KsuidGenerator.shared().init(this);
         } else {
-            throw new IllegalArgumentException("Unable to construct a Ksuid from " + value);
+            KsuidCodec.decode(KsuidCodec.Source.CHAR_SEQUENCE, value, 0, value.length(), this);
+            // keep the input, so round tripping never re-encodes
+            if (value.length() == base62Length) base62 = value;
         }
     }
     public Ksuid(ZonedDateTime when, byte[] entropy) {
-        int ts = (int)when.toInstant().getEpochSecond();
-        if (entropy == null) entropy = generateEntropy();
-        if (entropy.length != entropyLength) throw new IllegalArgumentException("Incorrect Entropy");
-        data = join(ts, entropy);
+        this((int)when.toInstant().getEpochSecond(), entropy);
+    }
+    /** the raw 160 bit value - a 32 bit timestamp, and 128 bits of entropy */
+    Ksuid(int rawKsuidEpoch, long entropyHigh, long entropyLow) {
+        init(rawKsuidEpoch, entropyHigh, entropyLow);
     }
 
-    private byte[] unpackMinimalArray(byte[] data) {
-        if (data.length < totalLength) {
-            data = ByteConverter.padArray((byte)0, data, totalLength);
-        }
-        return data;
+    /** Sets the value. Only for use while constructing */
+    void init(int rawKsuidEpoch, long entropyHigh, long entropyLow) {
+        this.timestamp = rawKsuidEpoch;
+        this.entropyHigh = entropyHigh;
+        this.entropyLow = entropyLow;
     }
 
-    private byte[] generateInitialData() {
-        int ts = (int)(ZonedDateTime.now(Clock.systemUTC()).toInstant().getEpochSecond() - EPOCH_SECONDS);
-        return join(ts, generateEntropy());
+    /**
+     * Generates many Ksuids at once, amortizing the clock read and entropy calls.
+     * @see KsuidGenerator#generate(int)
+     * @param count number of Ksuids
+     * @return a new array of Ksuids
+     */
+    public static Ksuid[] generate(int count) {
+        return KsuidGenerator.shared().generate(count);
     }
 
-    private byte[] generateEntropy() {
+    static int currentRawKsuidEpoch() {
+        return (int)(currentEpochSeconds() - EPOCH_SECONDS);
+    }
+
+    // the same as ZonedDateTime.now(Clock.systemUTC()), without allocating
+    static long currentEpochSeconds() {
+        return System.currentTimeMillis() / 1000L;
+    }
+
+    private static byte[] generateEntropy() {
         byte[] entropy = new byte[entropyLength];
-        random.nextBytes(entropy);
+        if (KsuidMetrics.ENABLED) {
+            KsuidEvents.nextBytes(EntropySource.defaultSource(), entropy);
+            KsuidMetrics.generated(1);
+        } else {
+            EntropySource.defaultSource().nextBytes(entropy);
+        }
         return entropy;
     }
 
-    private byte[] join(int ts, byte[] entropy) {
-        return ByteConverter.join(ByteConverter.encodeInt(ts), entropy);
+    /**
+     * Parses a 27 character base62 or 40 character base16 ksuid.<br/>
+     * Unlike the String constructor, null or empty input is rejected rather than generating a new Ksuid.
+     *
+     * @param value encoded ksuid
+     * @return the parsed Ksuid
+     * @throws IllegalArgumentException if the value is not a valid ksuid
+     */
+    public static Ksuid parse(CharSequence value) {
+        if (value == null) throw new IllegalArgumentException("Unable to construct a Ksuid from null");
+        return parse(value, 0, value.length());
+    }
+
+    /**
+     * Parses a ksuid through a shared, bounded {@link KsuidCache}.<br/>
+     * Repeated parses of the same base62 String return the same instance, without decoding or allocating.
+     *
+     * @param value encoded ksuid
+     * @return the parsed Ksuid
+     * @throws IllegalArgumentException if the value is not a valid ksuid
+     */
+    public static Ksuid parseCached(String value) {
+        return KsuidCache.shared().parse(value);
+    }
+
+    /**
+     * Parses a 27 character base62 or 40 character base16 ksuid from part of a CharSequence, without creating a String
+     *
+     * @param value characters containing an encoded ksuid
+     * @param start index of the first character
+     * @param end index after the last character
+     * @return the parsed Ksuid
+     * @throws IllegalArgumentException if the range is not a valid ksuid
+     */
+    public static Ksuid parse(CharSequence value, int start, int end) {
+        Objects.checkFromToIndex(start, end, value.length());
+        return keepBase62(KsuidCodec.decode(KsuidCodec.Source.CHAR_SEQUENCE, value, start, end - start), value, start, end);
+    }
+
+    /**
+     * Parses a 27 character base62 or 40 character base16 ksuid, reporting invalid input with a null
+     * instead of an exception. Suitable for validating untrusted input at a high rate.
+     *
+     * @param value encoded ksuid, may be null
+     * @return the parsed Ksuid, or null if the value is not a valid ksuid
+     */
+    public static Ksuid tryParse(CharSequence value) {
+        if (value == null) return null;
+        int end = value.length();
+        return keepBase62(KsuidCodec.tryDecode(KsuidCodec.Source.CHAR_SEQUENCE, value, 0, end), value, 0, end);
+    }
+
+    /**
+     * Parses a 27 character base62 or 40 character base16 ksuid from ASCII bytes, reporting invalid input with a null
+     *
+     * @param ascii bytes containing an encoded ksuid
+     * @param offset index of the first byte
+     * @param length number of bytes - 27 or 40
+     * @return the parsed Ksuid, or null if the range is not a valid ksuid
+     */
+    public static Ksuid tryParse(byte[] ascii, int offset, int length) {
+        Objects.checkFromIndexSize(offset, length, ascii.length);
+        return KsuidCodec.tryDecode(KsuidCodec.Source.BYTE_ARRAY, ascii, offset, length);
+    }
+
+    // when a whole String was parsed, keep it as the base62 form
+    private static Ksuid keepBase62(Ksuid ksuid, CharSequence value, int start, int end) {
+        if (ksuid != null && value instanceof String && start == 0 && end == base62Length && value.length() == base62Length) {
+            ksuid.base62 = (String) value;
+        }
+        return ksuid;
+    }
+
+    /**
+     * Parses a 27 character base62 or 40 character base16 ksuid from ASCII bytes
+     *
+     * @param ascii bytes containing an encoded ksuid
+     * @param offset index of the first byte
+     * @param length number of bytes - 27 or 40
+     * @return the parsed Ksuid
+     * @throws IllegalArgumentException if the range is not a valid ksuid
+     */
+    public static Ksuid parse(byte[] ascii, int offset, int length) {
+        Objects.checkFromIndexSize(offset, length, ascii.length);
+        return KsuidCodec.decode(KsuidCodec.Source.BYTE_ARRAY, ascii, offset, length);
+    }
+
+    /**
+     * Parses a 27 character base62 or 40 character base16 ksuid from ASCII bytes at the buffers position.<br/>
+     * The position is advanced past the ksuid.
+     *
+     * @param ascii buffer containing an encoded ksuid
+     * @param length number of bytes - 27 or 40
+     * @return the parsed Ksuid
+     * @throws IllegalArgumentException if the length is not 27 or 40, or the bytes are not a valid ksuid
+     */
+    public static Ksuid parse(ByteBuffer ascii, int length) {
+        if (length != base62Length && length != base16Length) throw new IllegalArgumentException("Length must be " + base62Length + " or " + base16Length + ", not " + length);
+        if (ascii.remaining() < length) throw new BufferUnderflowException();
+        Ksuid ksuid = KsuidCodec.decode(KsuidCodec.Source.BYTE_BUFFER, ascii, ascii.position(), length);
+        ascii.position(ascii.position() + length);
+        return ksuid;
     }
 
     public String toBase16() {
-        return padPrefixToLength("0", BaseCoder.base16Encoder.encode(data), base16Length);
+        return KsuidCodec.encodeBase16(timestamp, entropyHigh, entropyLow);
+    }
+
+    /** Writes the 40 character base16 encoding into dest, starting at offset */
+    public void toBase16(char[] dest, int offset) {
+        Objects.checkFromIndexSize(offset, base16Length, dest.length);
+        KsuidCodec.encodeBase16(timestamp, entropyHigh, entropyLow, KsuidCodec.Sink.CHAR_ARRAY, dest, offset);
     }
 
+    /** Writes the 40 character base16 encoding into dest as ASCII bytes, starting at offset */
+    public void toBase16(byte[] dest, int offset) {
+        Objects.checkFromIndexSize(offset, base16Length, dest.length);
+        KsuidCodec.encodeBase16(timestamp, entropyHigh, entropyLow, KsuidCodec.Sink.BYTE_ARRAY, dest, offset);
+    }
+
+    /** Writes the 40 character base16 encoding into dest as ASCII bytes, advancing its position */
+    public void toBase16(ByteBuffer dest) {
+        if (dest.remaining() < base16Length) throw new BufferOverflowException();
+        KsuidCodec.encodeBase16(timestamp, entropyHigh, entropyLow, KsuidCodec.Sink.BYTE_BUFFER, dest, dest.position());
+        dest.position(dest.position() + base16Length);
+    }
+
+    /** Appends the 40 character base16 encoding */
+    public StringBuilder appendBase16(StringBuilder dest) {
+        int start = dest.length();
+        dest.setLength(start + base16Length);
+        KsuidCodec.encodeBase16(timestamp, entropyHigh, entropyLow, KsuidCodec.Sink.STRING_BUILDER, dest, start);
+        return dest;
+    }
+
+    /** Appends the 40 character base16 encoding. StringBuilders are written in place */
+    public <A extends Appendable> A appendBase16(A dest) throws IOException {
+        if (dest instanceof StringBuilder) appendBase16((StringBuilder) dest);
+        else dest.append(toBase16());
+        return dest;
+    }
+
+    /**
+     * @return the 27 character base62 encoding. Computed once, then cached
+     */
     public String toBase62() {
-        return padPrefixToLength("0", BaseCoder.base62Encoder.encode(data), base62Length);
+        String encoded = base62;
+        if (encoded == null) {
+            encoded = KsuidCodec.encodeBase62(timestamp, entropyHigh, entropyLow);
+            base62 = encoded;
+        }
+        return encoded;
+    }
+
+    /** Writes the 27 character base62 encoding into dest, starting at offset */
+    public void toBase62(char[] dest, int offset) {
+        Objects.checkFromIndexSize(offset, base62Length, dest.length);
+        String encoded = base62;
+        if (encoded != null) encoded.getChars(0, base62Length, dest, offset);
+        else KsuidCodec.encodeBase62(timestamp, entropyHigh, entropyLow, KsuidCodec.Sink.CHAR_ARRAY, dest, offset);
+    }
+
+    /** Writes the 27 character base62 encoding into dest as ASCII bytes, starting at offset */
+    public void toBase62(byte[] dest, int offset) {
+        Objects.checkFromIndexSize(offset, base62Length, dest.length);
+        KsuidCodec.encodeBase62(timestamp, entropyHigh, entropyLow, KsuidCodec.Sink.BYTE_ARRAY, dest, offset);
+    }
+
+    /** Writes the 27 character base62 encoding into dest as ASCII bytes, advancing its position */
+    public void toBase62(ByteBuffer dest) {
+        if (dest.remaining() < base62Length) throw new BufferOverflowException();
+        KsuidCodec.encodeBase62(timestamp, entropyHigh, entropyLow, KsuidCodec.Sink.BYTE_BUFFER, dest, dest.position());
+        dest.position(dest.position() + base62Length);
+    }
+
+    /** Appends the 27 character base62 encoding */
+    public StringBuilder appendBase62(StringBuilder dest) {
+        String encoded = base62;
+        if (encoded != null) return dest.append(encoded);
+        int start = dest.length();
+        dest.setLength(start + base62Length);
+        KsuidCodec.encodeBase62(timestamp, entropyHigh, entropyLow, KsuidCodec.Sink.STRING_BUILDER, dest, start);
+        return dest;
+    }
+
+    /** Appends the 27 character base62 encoding. StringBuilders are written in place */
+    public <A extends Appendable> A appendBase62(A dest) throws IOException {
+        if (dest instanceof StringBuilder) appendBase62((StringBuilder) dest);
+        else dest.append(toBase62());
+        return dest;
     }
 
     public int getRawKsuidEpoch() {
-        return ByteConverter.decodeInt(data);
+        return timestamp;
     }
 
     public ZonedDateTime getTime() {
-        return ZonedDateTime.ofInstant(Instant.ofEpochSecond(getRawKsuidEpoch() + (long) EPOCH_SECONDS), ZoneOffset.UTC);
+        return getTime(timestamp);
+    }
+
+    static ZonedDateTime getTime(int rawKsuidEpoch) {
+        return ZonedDateTime.ofInstant(Instant.ofEpochSecond(rawKsuidEpoch + (long) EPOCH_SECONDS), ZoneOffset.UTC);
     }
 
     public byte[] getEntropy() {
         byte[] entropy = new byte[entropyLength];
-        System.arraycopy(data, tsLength, entropy, 0, entropyLength);
+        ByteConverter.writeLong(entropy, 0, entropyHigh);
+        ByteConverter.writeLong(entropy, 8, entropyLow);
         return entropy;
     }
 
+    /**
+     * Writes the raw 20 bytes (big endian, whatever the buffers byte order) at the buffers position, advancing it
+     * @param dest buffer to write to
+     */
+    public void writeTo(ByteBuffer dest) {
+        writeTo(dest, timestamp, entropyHigh, entropyLow);
+    }
+
+    static void writeTo(ByteBuffer dest, int timestamp, long entropyHigh, long entropyLow) {
+        if (dest.remaining() < totalLength) throw new BufferOverflowException();
+        if (dest.order() == ByteOrder.BIG_ENDIAN) {
+            dest.putInt(timestamp).putLong(entropyHigh).putLong(entropyLow);
+        } else {
+            dest.putInt(Integer.reverseBytes(timestamp)).putLong(Long.reverseBytes(entropyHigh)).putLong(Long.reverseBytes(entropyLow));
+        }
+    }
+
+    /**
+     * Reads the raw 20 bytes (big endian, whatever the buffers byte order) at the buffers position, advancing it
+     * @param src buffer to read from
+     * @return the Ksuid
+     */
+    public static Ksuid readFrom(ByteBuffer src) {
+        if (src.remaining() < totalLength) throw new BufferUnderflowException();
+        int position = src.position();
+        Ksuid ksuid = new Ksuid(getInt(src, position), getLong(src, position + tsLength), getLong(src, position + tsLength + 8));
+        src.position(position + totalLength);
+        return ksuid;
+    }
+
+    /**
+     * Writes the raw 20 bytes
+     * @param out destination
+     * @throws IOException from the DataOutput
+     */
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeInt(timestamp);
+        out.writeLong(entropyHigh);
+        out.writeLong(entropyLow);
+    }
+
+    /**
+     * Reads the raw 20 bytes
+     * @param in source
+     * @return the Ksuid
+     * @throws IOException from the DataInput
+     */
+    public static Ksuid readFrom(DataInput in) throws IOException {
+        int timestamp = in.readInt();
+        long entropyHigh = in.readLong();
+        return new Ksuid(timestamp, entropyHigh, in.readLong());
+    }
+
+    /**
+     * Compares with the raw 20 bytes stored at an absolute index, without reading them into a Ksuid.
+     * The buffers position is unchanged.
+     *
+     * @param buffer buffer holding a raw ksuid
+     * @param index index of the first byte
+     * @return the same as compareTo would for the stored Ksuid
+     */
+    public int compareTo(ByteBuffer buffer, int index) {
+        Objects.checkFromIndexSize(index, totalLength, buffer.limit());
+        int result = Integer.compareUnsigned(timestamp, getInt(buffer, index));
+        if (result == 0) result = Long.compareUnsigned(entropyHigh, getLong(buffer, index + tsLength));
+        if (result == 0) result = Long.compareUnsigned(entropyLow, getLong(buffer, index + tsLength + 8));
+        return result;
+    }
+
+    private static int getInt(ByteBuffer buffer, int index) {
+        int value = buffer.getInt(index);
+        return buffer.order() == ByteOrder.BIG_ENDIAN ? value : Integer.reverseBytes(value);
+    }
+
+    private static long getLong(ByteBuffer buffer, int index) {
+        long value = buffer.getLong(index);
+        return buffer.order() == ByteOrder.BIG_ENDIAN ? value : Long.reverseBytes(value);
+    }
+
     @Override
     public String toString() {
         return toBase62();
@@ -129,22 +430,40 @@ public class Ksuid {
         if (this == o) return true;
         if (!(o instanceof Ksuid)) return false;
         Ksuid ksuid = (Ksuid) o;
-        return Arrays.equals(data, ksuid.data);
+        return timestamp == ksuid.timestamp && entropyHigh == ksuid.entropyHigh && entropyLow == ksuid.entropyLow;
     }
 
     @Override
     public int hashCode() {
-        return Arrays.hashCode(data);
+        return 31 * (31 * timestamp + Long.hashCode(entropyHigh)) + Long.hashCode(entropyLow);
     }
 
-    private static String padPrefixToLength(String prefix, String value, int length) {
-        while(value.length() < length) {
-            value = prefix + value;
-        }
-        return value;
+    /**
+     * Unsigned comparison of the raw 20 bytes, a word at a time.<br/>
+     * This matches the ordering of the base62 and base16 strings, without encoding.
+     */
+    @Override
+    public int compareTo(Ksuid other) {
+        int result = Integer.compareUnsigned(timestamp, other.timestamp);
+        if (result == 0) result = Long.compareUnsigned(entropyHigh, other.entropyHigh);
+        if (result == 0) result = Long.compareUnsigned(entropyLow, other.entropyLow);
+        return result;
+    }
+
+    /** most significant 64 bits of the entropy */
+    long entropyHigh() {
+        return entropyHigh;
+    }
+
+    /** least significant 64 bits of the entropy */
+    long entropyLow() {
+        return entropyLow;
     }
 
+    /**
+     * Prints a new Ksuid, or runs one of the bulk commands - see {@link KsuidCli}
+     */
     public static void main(String[] args) {
-        System.out.println(new Ksuid());
+        KsuidCli.main(args);
     }
 }
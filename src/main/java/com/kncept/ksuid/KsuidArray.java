@@ -0,0 +1,269 @@
+package com.kncept.ksuid;
+
+import java.nio.ByteBuffer;
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+/**
+ * A growable, packed list of Ksuids.<br/>
+ *
+ * Values are stored column-wise in primitive arrays (an int timestamp, and two long entropy words)
+ * so each entry costs 20 bytes, with no per entry objects.<br/>
+ * Use a {@link Cursor} to read entries without materializing a Ksuid for each one.
+ * Once sorted, {@link #lowerBound(ZonedDateTime)} finds time ranges with a binary search on the timestamps.
+ */
+public class KsuidArray implements Iterable<Ksuid> {
+    private int[] timestamps;
+    private long[] entropyHigh;
+    private long[] entropyLow;
+    private int size;
+
+    public KsuidArray() {
+        this(16);
+    }
+
+    public KsuidArray(int initialCapacity) {
+        if (initialCapacity < 0) throw new IllegalArgumentException("initialCapacity must not be negative");
+        timestamps = new int[initialCapacity];
+        entropyHigh = new long[initialCapacity];
+        entropyLow = new long[initialCapacity];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void add(Ksuid ksuid) {
+        add(ksuid.getRawKsuidEpoch(), ksuid.entropyHigh(), ksuid.entropyLow());
+    }
+
+    void add(int timestamp, long high, long low) {
+        if (size == timestamps.length) grow();
+        timestamps[size] = timestamp;
+        entropyHigh[size] = high;
+        entropyLow[size] = low;
+        size++;
+    }
+
+    private void grow() {
+        int capacity = Math.max(16, timestamps.length + (timestamps.length >> 1));
+        timestamps = Arrays.copyOf(timestamps, capacity);
+        entropyHigh = Arrays.copyOf(entropyHigh, capacity);
+        entropyLow = Arrays.copyOf(entropyLow, capacity);
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * @param index position in the array
+     * @return a new Ksuid for the entry
+     */
+    public Ksuid get(int index) {
+        checkIndex(index);
+        return new Ksuid(timestamps[index], entropyHigh[index], entropyLow[index]);
+    }
+
+    public int getRawKsuidEpoch(int index) {
+        checkIndex(index);
+        return timestamps[index];
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+    }
+
+    /**
+     * Sorts into Ksuid order (unsigned, by the raw 20 bytes), which is time order.<br/>
+     * Large arrays are radix sorted (see {@link KsuidSort}), which needs a temporary copy of the entries
+     */
+    public void sort() {
+        if (size < KsuidSort.RADIX_THRESHOLD) quickSort(0, size - 1);
+        else KsuidSort.sort(timestamps, entropyHigh, entropyLow, size);
+    }
+
+    /**
+     * Binary search for the first entry at or after a time.<br/>
+     * Ksuids only have a resolution of seconds, so the time is truncated to the second.
+     * The array must be sorted.<br/>
+     * The entries created between t1 (inclusive) and t2 (exclusive) are the indexes from lowerBound(t1) to lowerBound(t2)
+     *
+     * @param time start of the range
+     * @return index of the first entry at or after the time, or size() if there are none
+     */
+    public int lowerBound(ZonedDateTime time) {
+        long target = time.toEpochSecond() - Ksuid.EPOCH_SECONDS;
+        if (target <= 0) return 0;
+        if (target > 0xFFFFFFFFL) return size;
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if ((timestamps[mid] & 0xFFFFFFFFL) < target) low = mid + 1;
+            else high = mid;
+        }
+        return low;
+    }
+
+    /**
+     * @return a reusable flyweight, positioned before the first entry
+     */
+    public Cursor cursor() {
+        return new Cursor();
+    }
+
+    /**
+     * Iterates by creating a Ksuid for each entry. Use a {@link Cursor} to avoid this.
+     */
+    @Override
+    public Iterator<Ksuid> iterator() {
+        return new Iterator<>() {
+            private int index;
+
+            @Override
+            public boolean hasNext() {
+                return index < size;
+            }
+
+            @Override
+            public Ksuid next() {
+                if (index >= size) throw new NoSuchElementException();
+                return get(index++);
+            }
+        };
+    }
+
+    int compare(int i, int j) {
+        int result = Integer.compareUnsigned(timestamps[i], timestamps[j]);
+        if (result == 0) result = Long.compareUnsigned(entropyHigh[i], entropyHigh[j]);
+        if (result == 0) result = Long.compareUnsigned(entropyLow[i], entropyLow[j]);
+        return result;
+    }
+
+    private void swap(int i, int j) {
+        int timestamp = timestamps[i];
+        timestamps[i] = timestamps[j];
+        timestamps[j] = timestamp;
+        long high = entropyHigh[i];
+        entropyHigh[i] = entropyHigh[j];
+        entropyHigh[j] = high;
+        long low = entropyLow[i];
+        entropyLow[i] = entropyLow[j];
+        entropyLow[j] = low;
+    }
+
+    // median of three quicksort, recursing into the smaller side. Insertion sort for small ranges
+    private void quickSort(int low, int high) {
+        while (high - low > 16) {
+            int mid = (low + high) >>> 1;
+            if (compare(mid, low) < 0) swap(mid, low);
+            if (compare(high, low) < 0) swap(high, low);
+            if (compare(high, mid) < 0) swap(high, mid);
+            swap(mid, high - 1); // pivot
+            int pivot = high - 1;
+            int i = low;
+            int j = high - 1;
+            while (true) {
+                while (compare(++i, pivot) < 0) ;
+                while (compare(--j, pivot) > 0) ;
+                if (i >= j) break;
+                swap(i, j);
+            }
+            swap(i, high - 1);
+            if (i - low < high - i) {
+                quickSort(low, i - 1);
+                low = i + 1;
+            } else {
+                quickSort(i + 1, high);
+                high = i - 1;
+            }
+        }
+        for(int i = low + 1; i <= high; i++) {
+            for(int j = i; j > low && compare(j, j - 1) < 0; j--) swap(j, j - 1);
+        }
+    }
+
+    /**
+     * A reusable view of one entry at a time.<br/>
+     * Reads straight from the packed arrays, so iterating allocates nothing.
+     */
+    public class Cursor {
+        private int index = -1;
+
+        private Cursor() {
+        }
+
+        /**
+         * @return true if the cursor moved to another entry
+         */
+        public boolean next() {
+            if (index < size) index++;
+            return index < size;
+        }
+
+        public Cursor moveTo(int index) {
+            checkIndex(index);
+            this.index = index;
+            return this;
+        }
+
+        public int index() {
+            return index;
+        }
+
+        public int getRawKsuidEpoch() {
+            return timestamps[current()];
+        }
+
+        public ZonedDateTime getTime() {
+            return Ksuid.getTime(timestamps[current()]);
+        }
+
+        public Ksuid toKsuid() {
+            return get(current());
+        }
+
+        public int compareTo(Ksuid ksuid) {
+            int index = current();
+            int result = Integer.compareUnsigned(timestamps[index], ksuid.getRawKsuidEpoch());
+            if (result == 0) result = Long.compareUnsigned(entropyHigh[index], ksuid.entropyHigh());
+            if (result == 0) result = Long.compareUnsigned(entropyLow[index], ksuid.entropyLow());
+            return result;
+        }
+
+        /** Writes the 27 character base62 encoding into dest, starting at offset */
+        public void toBase62(char[] dest, int offset) {
+            int index = current();
+            Objects.checkFromIndexSize(offset, Ksuid.base62Length, dest.length);
+            KsuidCodec.encodeBase62(timestamps[index], entropyHigh[index], entropyLow[index], KsuidCodec.Sink.CHAR_ARRAY, dest, offset);
+        }
+
+        /** Appends the 27 character base62 encoding */
+        public StringBuilder appendBase62(StringBuilder dest) {
+            int index = current();
+            int start = dest.length();
+            dest.setLength(start + Ksuid.base62Length);
+            KsuidCodec.encodeBase62(timestamps[index], entropyHigh[index], entropyLow[index], KsuidCodec.Sink.STRING_BUILDER, dest, start);
+            return dest;
+        }
+
+        /** Writes the raw 20 bytes, as per {@link Ksuid#writeTo(ByteBuffer)} */
+        public void writeTo(ByteBuffer dest) {
+            int index = current();
+            Ksuid.writeTo(dest, timestamps[index], entropyHigh[index], entropyLow[index]);
+        }
+
+        private int current() {
+            checkIndex(index);
+            return index;
+        }
+    }
+}
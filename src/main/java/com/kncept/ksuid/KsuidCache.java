@@ -0,0 +1,91 @@
+package com.kncept.ksuid;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded, lock-free cache of parsed base62 Ksuids.<br/>
+ *
+ * Entries live in a fixed size array of 2-way buckets, indexed by the String hash code.
+ * A new entry goes in the first slot of its bucket and pushes the previous occupant into the second,
+ * evicting whatever was there. Hits in the second slot are promoted back to the first.<br/>
+ * Concurrent updates can race, but only ever lose an entry - Ksuids are immutable, so a reader always sees
+ * either nothing or a complete Ksuid, and the key is checked against the Ksuid's own (cached) base62 form.<br/>
+ * Only 27 character base62 input is cached, anything else is parsed directly.
+ */
+public class KsuidCache {
+    /** Default number of entries for {@link Ksuid#parseCached(String)} */
+    public static final int DEFAULT_CAPACITY = 1 << 16;
+
+    private final Ksuid[] slots;
+    private final int bucketMask;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * @param capacity maximum number of entries, rounded up to a power of two (minimum 2)
+     */
+    public KsuidCache(int capacity) {
+        if (capacity < 1) throw new IllegalArgumentException("capacity must be positive");
+        int size = Math.max(2, Integer.highestOneBit(capacity));
+        if (size < capacity) size <<= 1;
+        slots = new Ksuid[size];
+        bucketMask = size - 2; // buckets start on even indexes
+    }
+
+    static KsuidCache shared() {
+        return Holder.SHARED;
+    }
+
+    /**
+     * Parses a Ksuid, returning a cached instance when this value has been seen recently
+     *
+     * @param value encoded ksuid
+     * @return the parsed Ksuid
+     * @throws IllegalArgumentException if the value is not a valid ksuid
+     */
+    public Ksuid parse(String value) {
+        if (value == null || value.length() != Ksuid.base62Length) return Ksuid.parse(value);
+        int hash = value.hashCode();
+        int bucket = (hash ^ (hash >>> 16)) & bucketMask;
+        Ksuid first = slots[bucket];
+        if (first != null && value.equals(first.toBase62())) {
+            hits.increment();
+            return first;
+        }
+        Ksuid second = slots[bucket + 1];
+        if (second != null && value.equals(second.toBase62())) {
+            hits.increment();
+            slots[bucket + 1] = first;
+            slots[bucket] = second;
+            return second;
+        }
+        misses.increment();
+        Ksuid ksuid = Ksuid.parse(value);
+        slots[bucket + 1] = first;
+        slots[bucket] = ksuid;
+        return ksuid;
+    }
+
+    public long hits() {
+        return hits.sum();
+    }
+
+    public long misses() {
+        return misses.sum();
+    }
+
+    public int capacity() {
+        return slots.length;
+    }
+
+    /** Empties the cache. The hit and miss counters are reset too */
+    public void clear() {
+        for(int i = 0; i < slots.length; i++) slots[i] = null;
+        hits.reset();
+        misses.reset();
+    }
+
+    private static class Holder {
+        static final KsuidCache SHARED = new KsuidCache(DEFAULT_CAPACITY);
+    }
+}
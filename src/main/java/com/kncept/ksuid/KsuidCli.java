@@ -0,0 +1,411 @@
+package com.kncept.ksuid;
+
+import com.kncept.ksuid.utils.ByteConverter;
+
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Command line tool behind {@link Ksuid#main(String[])}.<br/>
+ *
+ * With no arguments, prints a single new Ksuid. The subcommands work in bulk:
+ * <pre>
+ *   generate &lt;count&gt; [--format base62|base16|raw] [--threads n] [--chunk-size bytes] [--out file]
+ *   convert &lt;file&gt; [--from text|raw] [--format base62|base16|raw] [--threads n] [--chunk-size bytes] [--out file]
+ *   inspect &lt;file&gt; [--from text|raw] [--threads n] [--chunk-size bytes] [--out file]
+ * </pre>
+ * Text input is one Ksuid per line, base62 or base16 (detected by length). Raw input and output is packed 20 byte values.<br/>
+ * Work is split into chunks that are processed in parallel, and written in order - so conversion keeps the input order.
+ * Input files are read through memory mapping. Input that can't be mapped (eg: a pipe, or /dev/stdin) is read as a stream.
+ * --chunk-size sets the bytes per chunk (default 4MB).<br/>
+ * The exit status is 2 for invalid arguments, 3 for invalid input data (eg: a bad line), and 1 for IO errors.
+ */
+final class KsuidCli {
+    static final int DEFAULT_CHUNK_SIZE = 4 * 1024 * 1024;
+    static final int MAX_THREADS = 1024;
+    static final int EXIT_IO_ERROR = 1;
+    static final int EXIT_USAGE = 2;
+    static final int EXIT_INVALID_INPUT = 3;
+    private static final String USAGE = String.join(System.lineSeparator(),
+            "usage: ksuid",
+            "       ksuid generate <count> [--format base62|base16|raw] [--threads n] [--chunk-size bytes] [--out file]",
+            "       ksuid convert <file> [--from text|raw] [--format base62|base16|raw] [--threads n] [--chunk-size bytes] [--out file]",
+            "       ksuid inspect <file> [--from text|raw] [--threads n] [--chunk-size bytes] [--out file]");
+
+    enum Format {
+        BASE62(Ksuid.base62Length + 1),
+        BASE16(Ksuid.base16Length + 1),
+        RAW(Ksuid.totalLength);
+
+        /** bytes per Ksuid, including the newline */
+        final int recordLength;
+
+        Format(int recordLength) {
+            this.recordLength = recordLength;
+        }
+
+        void write(int timestamp, long high, long low, byte[] dest, int offset) {
+            switch (this) {
+                case BASE62:
+                    KsuidCodec.encodeBase62(timestamp, high, low, KsuidCodec.Sink.BYTE_ARRAY, dest, offset);
+                    dest[offset + Ksuid.base62Length] = '\n';
+                    break;
+                case BASE16:
+                    KsuidCodec.encodeBase16(timestamp, high, low, KsuidCodec.Sink.BYTE_ARRAY, dest, offset);
+                    dest[offset + Ksuid.base16Length] = '\n';
+                    break;
+                default:
+                    ByteConverter.writeInt(dest, offset, timestamp);
+                    ByteConverter.writeLong(dest, offset + Ksuid.tsLength, high);
+                    ByteConverter.writeLong(dest, offset + Ksuid.tsLength + 8, low);
+            }
+        }
+    }
+
+    private Format format = Format.BASE62;
+    private boolean rawInput;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private int chunkSize = DEFAULT_CHUNK_SIZE;
+    private String out;
+
+    private KsuidCli() {
+    }
+
+    static void main(String[] args) {
+        int status = run(args, System.out, System.err);
+        if (status != 0) System.exit(status);
+    }
+
+    /**
+     * @return the exit status
+     */
+    static int run(String[] args, PrintStream stdout, PrintStream stderr) {
+        if (args.length == 0) {
+            stdout.println(new Ksuid());
+            return 0;
+        }
+        KsuidCli cli = new KsuidCli();
+        try {
+            String command = args[0];
+            if (args.length < 2) throw new IllegalArgumentException("Missing argument for " + command);
+            cli.parseOptions(Arrays.copyOfRange(args, 2, args.length));
+            switch (command) {
+                case "generate":
+                    cli.generate(parseCount(args[1]), stdout);
+                    break;
+                case "convert":
+                    cli.convert(Paths.get(args[1]), false, stdout);
+                    break;
+                case "inspect":
+                    cli.convert(Paths.get(args[1]), true, stdout);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown command " + command);
+            }
+            return 0;
+        } catch (InvalidInputException e) {
+            stderr.println(e.getMessage());
+            return EXIT_INVALID_INPUT;
+        } catch (IllegalArgumentException e) {
+            stderr.println(e.getMessage());
+            stderr.println(USAGE);
+            return EXIT_USAGE;
+        } catch (IOException e) {
+            stderr.println(e);
+            return EXIT_IO_ERROR;
+        }
+    }
+
+    private static long parseCount(String value) {
+        try {
+            long count = Long.parseLong(value);
+            if (count >= 0) return count;
+        } catch (NumberFormatException e) {
+            // fall through
+        }
+        throw new IllegalArgumentException("Invalid count " + value);
+    }
+
+    private static int parseInt(String value, String option, int min, int max) {
+        long parsed = parseCount(value);
+        if (parsed < min || parsed > max) throw new IllegalArgumentException("Invalid " + option + " " + value + ", must be from " + min + " to " + max);
+        return (int) parsed;
+    }
+
+    private void parseOptions(String[] options) {
+        for(int i = 0; i < options.length; i++) {
+            String option = options[i];
+            if (i + 1 == options.length) throw new IllegalArgumentException("Missing value for " + option);
+            String value = options[++i];
+            switch (option) {
+                case "--format":
+                    try {
+                        format = Format.valueOf(value.toUpperCase(Locale.ROOT));
+                    } catch (IllegalArgumentException e) {
+                        throw new IllegalArgumentException("Unknown format " + value);
+                    }
+                    break;
+                case "--from":
+                    if (!value.equals("text") && !value.equals("raw")) throw new IllegalArgumentException("Unknown input format " + value);
+                    rawInput = value.equals("raw");
+                    break;
+                case "--threads":
+                    threads = parseInt(value, "thread count", 1, MAX_THREADS);
+                    break;
+                case "--chunk-size":
+                    chunkSize = parseInt(value, "chunk size", Ksuid.base16Length + 2, Integer.MAX_VALUE);
+                    break;
+                case "--out":
+                    out = value;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + option);
+            }
+        }
+    }
+
+    private void generate(long count, PrintStream stdout) throws IOException {
+        long perChunk = Math.max(1, chunkSize / format.recordLength);
+        KsuidGenerator generator = KsuidGenerator.shared();
+        try (Pipeline pipeline = new Pipeline(stdout)) {
+            for(long start = 0; start < count; start += perChunk) {
+                int size = (int) Math.min(perChunk, count - start);
+                pipeline.submit(() -> {
+                    byte[] chunk = new byte[size * format.recordLength];
+                    Ksuid[] batch = new Ksuid[Math.min(size, KsuidGenerator.BATCH_SIZE)];
+                    for(int done = 0; done < size; ) {
+                        int n = Math.min(batch.length, size - done);
+                        generator.fill(batch, 0, n);
+                        for(int i = 0; i < n; i++, done++) {
+                            Ksuid ksuid = batch[i];
+                            format.write(ksuid.getRawKsuidEpoch(), ksuid.entropyHigh(), ksuid.entropyLow(), chunk, done * format.recordLength);
+                        }
+                    }
+                    return chunk;
+                });
+            }
+            pipeline.finish();
+        }
+    }
+
+    private void convert(Path input, boolean inspect, PrintStream stdout) throws IOException {
+        // pipes and devices report a size of 0, as do some pseudo files (eg: /proc)
+        if (!Files.isRegularFile(input) || Files.size(input) == 0) {
+            try (InputStream in = Files.newInputStream(input);
+                 Pipeline pipeline = new Pipeline(stdout)) {
+                convertStream(in, inspect, pipeline);
+                pipeline.finish();
+            }
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(input, StandardOpenOption.READ);
+             Pipeline pipeline = new Pipeline(stdout)) {
+            long length = channel.size();
+            if (rawInput && length % Ksuid.totalLength != 0)
+                throw new InvalidInputException("Raw input is not a multiple of " + Ksuid.totalLength + " bytes");
+            long position = 0;
+            while (position < length) {
+                long size = Math.min(chunkSize, length - position);
+                MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, position, size);
+                int end = (int) size;
+                if (rawInput) {
+                    end -= end % Ksuid.totalLength;
+                } else if (position + size < length) {
+                    // finish on a line boundary
+                    while (end > 0 && mapped.get(end - 1) != '\n') end--;
+                    if (end == 0) throw new InvalidInputException("Line too long at byte offset " + position);
+                }
+                long offset = position;
+                int chunkEnd = end;
+                pipeline.submit(() -> inspect ? inspectChunk(mapped, chunkEnd, offset) : convertChunk(mapped, chunkEnd, offset));
+                position += end;
+            }
+            pipeline.finish();
+        }
+    }
+
+    /**
+     * The same chunks as the memory mapped path, read into heap buffers.
+     * Any partial line (or raw value) at the end of a chunk is carried into the next one.
+     */
+    private void convertStream(InputStream in, boolean inspect, Pipeline pipeline) throws IOException {
+        byte[] buffer = new byte[chunkSize];
+        int filled = 0;
+        long position = 0;
+        boolean eof = false;
+        while (!eof) {
+            int read = in.readNBytes(buffer, filled, buffer.length - filled);
+            eof = read < buffer.length - filled;
+            filled += read;
+            int end = filled;
+            if (rawInput) {
+                end -= end % Ksuid.totalLength;
+                if (eof && end != filled) throw new InvalidInputException("Raw input is not a multiple of " + Ksuid.totalLength + " bytes");
+            } else if (!eof) {
+                while (end > 0 && buffer[end - 1] != '\n') end--;
+                if (end == 0) throw new InvalidInputException("Line too long at byte offset " + position);
+            }
+            if (end > 0) {
+                ByteBuffer chunk = ByteBuffer.wrap(buffer, 0, end);
+                long offset = position;
+                int chunkEnd = end;
+                pipeline.submit(() -> inspect ? inspectChunk(chunk, chunkEnd, offset) : convertChunk(chunk, chunkEnd, offset));
+            }
+            // the submitted chunk is still being read, so carry the remainder into a new buffer
+            byte[] next = eof ? buffer : new byte[chunkSize];
+            System.arraycopy(buffer, end, next, 0, filled - end);
+            buffer = next;
+            filled -= end;
+            position += end;
+        }
+    }
+
+    private byte[] convertChunk(ByteBuffer chunk, int end, long offset) {
+        if (rawInput) {
+            byte[] converted = new byte[end / Ksuid.totalLength * format.recordLength];
+            for(int i = 0, o = 0; i < end; i += Ksuid.totalLength, o += format.recordLength) {
+                format.write(chunk.getInt(i), chunk.getLong(i + Ksuid.tsLength), chunk.getLong(i + Ksuid.tsLength + 8), converted, o);
+            }
+            return converted;
+        }
+        // worst case every line is a 27 character base62 value plus a newline
+        byte[] converted = new byte[end / (Ksuid.base62Length + 1) * format.recordLength + format.recordLength];
+        int o = 0;
+        for(int lineStart = 0; lineStart < end; ) {
+            int lineEnd = lineEnd(chunk, lineStart, end);
+            Ksuid ksuid = parseLine(chunk, lineStart, lineEnd, offset);
+            if (ksuid != null) {
+                format.write(ksuid.getRawKsuidEpoch(), ksuid.entropyHigh(), ksuid.entropyLow(), converted, o);
+                o += format.recordLength;
+            }
+            lineStart = lineEnd + 1;
+        }
+        return Arrays.copyOf(converted, o);
+    }
+
+    private byte[] inspectChunk(ByteBuffer chunk, int end, long offset) {
+        StringBuilder sb = new StringBuilder();
+        if (rawInput) {
+            for(int i = 0; i < end; i += Ksuid.totalLength) {
+                inspect(sb, new Ksuid(chunk.getInt(i), chunk.getLong(i + Ksuid.tsLength), chunk.getLong(i + Ksuid.tsLength + 8)));
+            }
+        } else {
+            for(int lineStart = 0; lineStart < end; ) {
+                int lineEnd = lineEnd(chunk, lineStart, end);
+                Ksuid ksuid = parseLine(chunk, lineStart, lineEnd, offset);
+                if (ksuid != null) inspect(sb, ksuid);
+                lineStart = lineEnd + 1;
+            }
+        }
+        return sb.toString().getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static void inspect(StringBuilder sb, Ksuid ksuid) {
+        ksuid.appendBase62(sb).append(' ').append(ksuid.getTime().toInstant()).append(' ');
+        int start = sb.length();
+        ksuid.appendBase16(sb);
+        // just the entropy
+        sb.delete(start, start + Ksuid.tsLength * 2).append('\n');
+    }
+
+    private static int lineEnd(ByteBuffer chunk, int from, int end) {
+        int i = from;
+        while (i < end && chunk.get(i) != '\n') i++;
+        return i;
+    }
+
+    /**
+     * @return the Ksuid, or null for a blank line
+     */
+    private static Ksuid parseLine(ByteBuffer chunk, int start, int end, long offset) {
+        if (end > start && chunk.get(end - 1) == '\r') end--;
+        if (end == start) return null;
+        Ksuid ksuid = KsuidCodec.tryDecode(KsuidCodec.Source.BYTE_BUFFER, chunk, start, end - start);
+        if (ksuid == null) throw new InvalidInputException("Invalid Ksuid at byte offset " + (offset + start));
+        return ksuid;
+    }
+
+    /**
+     * Bad input data, as opposed to bad arguments - reported without the usage
+     */
+    static class InvalidInputException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        InvalidInputException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * Runs chunk tasks in parallel, writing their results in submission order.
+     * Only a few chunks are in flight at once, so memory stays bounded.
+     */
+    private class Pipeline implements AutoCloseable {
+        private final ExecutorService executor;
+        private final ArrayDeque<Future<byte[]>> pending = new ArrayDeque<>();
+        private final OutputStream output;
+        private final boolean closeOutput;
+
+        Pipeline(PrintStream stdout) throws IOException {
+            executor = Executors.newFixedThreadPool(threads, r -> {
+                Thread thread = new Thread(r, "ksuid-cli");
+                thread.setDaemon(true);
+                return thread;
+            });
+            closeOutput = out != null && !out.equals("-");
+            output = closeOutput ? new BufferedOutputStream(new FileOutputStream(out), 1 << 16) : stdout;
+        }
+
+        void submit(Callable<byte[]> task) throws IOException {
+            if (pending.size() >= threads * 2) writeNext();
+            pending.add(executor.submit(task));
+        }
+
+        private void writeNext() throws IOException {
+            Future<byte[]> next = pending.remove();
+            try {
+                output.write(next.get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException(e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof InvalidInputException) throw (InvalidInputException) e.getCause();
+                throw new IOException(e.getCause());
+            }
+        }
+
+        /** writes the remaining chunks */
+        void finish() throws IOException {
+            while (!pending.isEmpty()) writeNext();
+            output.flush();
+        }
+
+        /** abandons any unwritten chunks */
+        @Override
+        public void close() throws IOException {
+            pending.forEach(future -> future.cancel(true));
+            executor.shutdownNow();
+            if (closeOutput) output.close();
+        }
+    }
+}
@@ -0,0 +1,251 @@
+package com.kncept.ksuid;
+
+import com.kncept.ksuid.utils.BaseCoder;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Fixed width codec for the 20 byte (160 bit) Ksuid payload.<br/>
+ *
+ * Produces exactly the same output as the BaseCoder, zero padded to length, but without BigInteger maths.<br/>
+ * The payload is split into five 32 bit words, and converted with long division by 62^5 (5 digits per pass).<br/>
+ * Characters are written through a stateless {@link Sink} (and read through a {@link Source}) so the same
+ * conversion works on Strings, char arrays, StringBuilders and ASCII bytes without any intermediate copies.
+ */
+final class KsuidCodec {
+    private static final long WORD_MASK = 0xFFFFFFFFL;
+    /** 62^5 - the largest power of 62 that fits in 31 bits */
+    private static final long BASE62_CHUNK = 916132832L;
+    private static final int BASE62_CHUNK_DIGITS = 5;
+
+    private static final char[] BASE62_ALPHABET = BaseCoder.alphabet_base62.toCharArray();
+    private static final char[] BASE16_ALPHABET = BaseCoder.alphabet_base16.toCharArray();
+
+    private KsuidCodec() {
+    }
+
+    static String encodeBase62(int timestamp, long entropyHigh, long entropyLow) {
+        char[] encoded = new char[Ksuid.base62Length];
+        encodeBase62(timestamp, entropyHigh, entropyLow, Sink.CHAR_ARRAY, encoded, 0);
+        return new String(encoded);
+    }
+
+    static String encodeBase16(int timestamp, long entropyHigh, long entropyLow) {
+        char[] encoded = new char[Ksuid.base16Length];
+        encodeBase16(timestamp, entropyHigh, entropyLow, Sink.CHAR_ARRAY, encoded, 0);
+        return new String(encoded);
+    }
+
+    static <T> void encodeBase62(int timestamp, long entropyHigh, long entropyLow, Sink<T> sink, T dest, int offset) {
+        int w0 = timestamp;
+        int w1 = (int) (entropyHigh >>> 32);
+        int w2 = (int) entropyHigh;
+        int w3 = (int) (entropyLow >>> 32);
+        int w4 = (int) entropyLow;
+        int pos = offset + Ksuid.base62Length;
+        while (pos > offset) {
+            // divide the 160 bit number by 62^5, most significant word first
+            long remainder = w0 & WORD_MASK;
+            w0 = (int) (remainder / BASE62_CHUNK);
+            remainder = (remainder % BASE62_CHUNK) << 32 | (w1 & WORD_MASK);
+            w1 = (int) (remainder / BASE62_CHUNK);
+            remainder = (remainder % BASE62_CHUNK) << 32 | (w2 & WORD_MASK);
+            w2 = (int) (remainder / BASE62_CHUNK);
+            remainder = (remainder % BASE62_CHUNK) << 32 | (w3 & WORD_MASK);
+            w3 = (int) (remainder / BASE62_CHUNK);
+            remainder = (remainder % BASE62_CHUNK) << 32 | (w4 & WORD_MASK);
+            w4 = (int) (remainder / BASE62_CHUNK);
+            int chunk = (int) (remainder % BASE62_CHUNK);
+
+            // the last pass only has 2 digits left (27 = 5 * 5 + 2)
+            for(int i = 0; i < BASE62_CHUNK_DIGITS && pos > offset; i++) {
+                sink.put(dest, --pos, BASE62_ALPHABET[chunk % 62]);
+                chunk /= 62;
+            }
+        }
+    }
+
+    static <T> void encodeBase16(int timestamp, long entropyHigh, long entropyLow, Sink<T> sink, T dest, int offset) {
+        encodeBase16(timestamp, sink, dest, offset);
+        encodeBase16((int) (entropyHigh >>> 32), sink, dest, offset + 8);
+        encodeBase16((int) entropyHigh, sink, dest, offset + 16);
+        encodeBase16((int) (entropyLow >>> 32), sink, dest, offset + 24);
+        encodeBase16((int) entropyLow, sink, dest, offset + 32);
+    }
+
+    private static <T> void encodeBase16(int word, Sink<T> sink, T dest, int offset) {
+        for(int shift = 28; shift >= 0; shift -= 4) {
+            sink.put(dest, offset++, BASE16_ALPHABET[(word >>> shift) & 0xF]);
+        }
+    }
+
+    /**
+     * Decodes a 27 character base62 or 40 character base16 ksuid, depending on length
+     * @throws IllegalArgumentException for any other length, or invalid input
+     */
+    static <T> Ksuid decode(Source<T> source, T value, int offset, int length) {
+        return decode(source, value, offset, length, null);
+    }
+
+    /**
+     * @param target a Ksuid under construction to decode into, or null for a new Ksuid
+     */
+    static <T> Ksuid decode(Source<T> source, T value, int offset, int length, Ksuid target) {
+        Ksuid ksuid = tryDecode(source, value, offset, length, target);
+        if (ksuid == null) throw invalid(source, value, offset, length);
+        return ksuid;
+    }
+
+    /**
+     * Decodes a 27 character base62 or 40 character base16 ksuid, depending on length
+     * @return the Ksuid, or null for any other length, or invalid input
+     */
+    static <T> Ksuid tryDecode(Source<T> source, T value, int offset, int length) {
+        return tryDecode(source, value, offset, length, null);
+    }
+
+    private static <T> Ksuid tryDecode(Source<T> source, T value, int offset, int length, Ksuid target) {
+        Ksuid ksuid = null;
+        if (length == Ksuid.base62Length) ksuid = decodeBase62(source, value, offset, target);
+        else if (length == Ksuid.base16Length) ksuid = decodeBase16(source, value, offset, target);
+        if (KsuidMetrics.ENABLED) KsuidEvents.parsed(ksuid, source, value, offset, length);
+        return ksuid;
+    }
+
+    static <T> Ksuid decodeBase62(Source<T> source, T value, int offset) {
+        return decodeBase62(source, value, offset, null);
+    }
+
+    /**
+     * Decodes a 27 character base62 ksuid
+     * @return the Ksuid, or null for invalid characters, or values larger than 160 bits
+     */
+    private static <T> Ksuid decodeBase62(Source<T> source, T value, int offset, Ksuid target) {
+        int w0 = 0, w1 = 0, w2 = 0, w3 = 0, w4 = 0;
+        int index = offset;
+        int end = offset + Ksuid.base62Length;
+        // a 2 digit chunk first, so the rest fall on 5 digit boundaries
+        int chunkDigits = Ksuid.base62Length % BASE62_CHUNK_DIGITS;
+        while (index < end) {
+            long chunk = 0;
+            long multiplier = 1;
+            for(int i = 0; i < chunkDigits; i++) {
+                int digit = BaseCoder.base62Encoder.digitValue(source.charAt(value, index++));
+                if (digit < 0) return null;
+                chunk = chunk * 62 + digit;
+                multiplier *= 62;
+            }
+            chunkDigits = BASE62_CHUNK_DIGITS;
+
+            // multiply the 160 bit number by 62^n and add the chunk, least significant word first
+            long carry = (w4 & WORD_MASK) * multiplier + chunk;
+            w4 = (int) carry;
+            carry = (w3 & WORD_MASK) * multiplier + (carry >>> 32);
+            w3 = (int) carry;
+            carry = (w2 & WORD_MASK) * multiplier + (carry >>> 32);
+            w2 = (int) carry;
+            carry = (w1 & WORD_MASK) * multiplier + (carry >>> 32);
+            w1 = (int) carry;
+            carry = (w0 & WORD_MASK) * multiplier + (carry >>> 32);
+            w0 = (int) carry;
+            if ((carry >>> 32) != 0) return null;
+        }
+        return result(target, w0, (long) w1 << 32 | (w2 & WORD_MASK), (long) w3 << 32 | (w4 & WORD_MASK));
+    }
+
+    static <T> Ksuid decodeBase16(Source<T> source, T value, int offset) {
+        return decodeBase16(source, value, offset, null);
+    }
+
+    /**
+     * Decodes a 40 character base16 ksuid, in either case
+     * @return the Ksuid, or null for invalid characters
+     */
+    private static <T> Ksuid decodeBase16(Source<T> source, T value, int offset, Ksuid target) {
+        long entropyHigh = 0, entropyLow = 0;
+        int timestamp = 0;
+        for(int i = 0; i < Ksuid.base16Length; i++) {
+            int digit = BaseCoder.base16Encoder.digitValue(source.charAt(value, offset + i));
+            if (digit < 0) return null;
+            // shift each nibble through the three fields, most significant first
+            timestamp = timestamp << 4 | (int) (entropyHigh >>> 60);
+            entropyHigh = entropyHigh << 4 | entropyLow >>> 60;
+            entropyLow = entropyLow << 4 | digit;
+        }
+        return result(target, timestamp, entropyHigh, entropyLow);
+    }
+
+    private static Ksuid result(Ksuid target, int timestamp, long entropyHigh, long entropyLow) {
+        if (target == null) return new Ksuid(timestamp, entropyHigh, entropyLow);
+        target.init(timestamp, entropyHigh, entropyLow);
+        return target;
+    }
+
+    private static <T> IllegalArgumentException invalid(Source<T> source, T value, int offset, int length) {
+        StringBuilder sb = new StringBuilder(length);
+        for(int i = 0; i < length; i++) sb.append(source.charAt(value, offset + i));
+        return new IllegalArgumentException("Unable to construct a Ksuid from " + sb);
+    }
+
+    /**
+     * Writes one encoded character at an absolute index.<br/>
+     * Stateless singletons, so choosing a destination type never allocates.
+     */
+    interface Sink<T> {
+        void put(T dest, int index, char c);
+
+        // anonymous classes rather than lambdas, so the first encode doesn't have to bootstrap invokedynamic
+        Sink<char[]> CHAR_ARRAY = new Sink<>() {
+            @Override
+            public void put(char[] dest, int index, char c) {
+                dest[index] = c;
+            }
+        };
+        Sink<byte[]> BYTE_ARRAY = new Sink<>() {
+            @Override
+            public void put(byte[] dest, int index, char c) {
+                dest[index] = (byte) c;
+            }
+        };
+        Sink<ByteBuffer> BYTE_BUFFER = new Sink<>() {
+            @Override
+            public void put(ByteBuffer dest, int index, char c) {
+                dest.put(index, (byte) c);
+            }
+        };
+        Sink<StringBuilder> STRING_BUILDER = new Sink<>() {
+            @Override
+            public void put(StringBuilder dest, int index, char c) {
+                dest.setCharAt(index, c);
+            }
+        };
+    }
+
+    /**
+     * Reads one character from an absolute index.<br/>
+     * Stateless singletons, so choosing a source type never allocates.
+     */
+    interface Source<T> {
+        char charAt(T value, int index);
+
+        // anonymous classes rather than lambdas, so the first decode doesn't have to bootstrap invokedynamic
+        Source<CharSequence> CHAR_SEQUENCE = new Source<>() {
+            @Override
+            public char charAt(CharSequence value, int index) {
+                return value.charAt(index);
+            }
+        };
+        Source<byte[]> BYTE_ARRAY = new Source<>() {
+            @Override
+            public char charAt(byte[] value, int index) {
+                return (char) (value[index] & 0xFF);
+            }
+        };
+        Source<ByteBuffer> BYTE_BUFFER = new Source<>() {
+            @Override
+            public char charAt(ByteBuffer value, int index) {
+                return (char) (value.get(index) & 0xFF);
+            }
+        };
+    }
+}
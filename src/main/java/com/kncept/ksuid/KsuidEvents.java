@@ -0,0 +1,100 @@
+package com.kncept.ksuid;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+/**
+ * Flight Recorder events, and the instrumented paths that emit them and update {@link KsuidMetrics}.<br/>
+ * Only called when {@link KsuidMetrics#ENABLED} is set.
+ */
+final class KsuidEvents {
+    private static final int MAX_INPUT_LENGTH = 64;
+
+    private KsuidEvents() {
+    }
+
+    @Name("com.kncept.ksuid.EntropyRefill")
+    @Label("Ksuid Entropy Refill")
+    @Category("Ksuid")
+    @Description("A call to an EntropySource, eg: a SecureRandom blocking or reseeding")
+    @Threshold("100 us")
+    static class EntropyRefill extends Event {
+        @Label("Bytes")
+        int bytes;
+
+        @Label("Source")
+        Class<?> source;
+    }
+
+    @Name("com.kncept.ksuid.Generation")
+    @Label("Slow Ksuid Generation")
+    @Category("Ksuid")
+    @Description("Generating one or more Ksuids, including the clock read and entropy")
+    @Threshold("1 ms")
+    static class Generation extends Event {
+        @Label("Count")
+        int count;
+
+        @Label("Generator")
+        Class<?> generator;
+    }
+
+    @Name("com.kncept.ksuid.ParseFailure")
+    @Label("Ksuid Parse Failure")
+    @Category("Ksuid")
+    @Description("Input that could not be decoded as a base62 or base16 Ksuid")
+    static class ParseFailure extends Event {
+        @Label("Input")
+        String input;
+
+        @Label("Length")
+        int length;
+    }
+
+    static void nextBytes(EntropySource source, byte[] bytes) {
+        EntropyRefill event = new EntropyRefill();
+        event.begin();
+        long start = System.nanoTime();
+        source.nextBytes(bytes);
+        KsuidMetrics.entropy(System.nanoTime() - start);
+        event.end();
+        if (event.shouldCommit()) {
+            event.bytes = bytes.length;
+            event.source = source.getClass();
+            event.commit();
+        }
+    }
+
+    static Generation beginGeneration() {
+        Generation event = new Generation();
+        event.begin();
+        return event;
+    }
+
+    static void endGeneration(Generation event, KsuidGenerator generator, int count) {
+        KsuidMetrics.generated(count);
+        event.end();
+        if (event.shouldCommit()) {
+            event.count = count;
+            event.generator = generator.getClass();
+            event.commit();
+        }
+    }
+
+    static <T> void parsed(Ksuid ksuid, KsuidCodec.Source<T> source, T value, int offset, int length) {
+        KsuidMetrics.parsed(ksuid == null);
+        if (ksuid != null) return;
+        ParseFailure event = new ParseFailure();
+        if (event.shouldCommit()) {
+            StringBuilder sb = new StringBuilder(Math.min(length, MAX_INPUT_LENGTH));
+            for(int i = 0; i < length && i < MAX_INPUT_LENGTH; i++) sb.append(source.charAt(value, offset + i));
+            event.input = sb.toString();
+            event.length = length;
+            event.commit();
+        }
+    }
+}
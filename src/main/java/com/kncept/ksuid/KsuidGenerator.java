@@ -0,0 +1,183 @@
+package com.kncept.ksuid;
+
+import com.kncept.ksuid.utils.ByteConverter;
+
+import java.time.Clock;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.LongSupplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Creates Ksuids from a configurable EntropySource.<br/>
+ *
+ * new Ksuid() uses a shared default generator (the default EntropySource, and the system clock).
+ * Create your own to supply a different source of randomness,
+ * or a different clock (eg: a fixed clock in tests, or a {@link CachedSecondsClock}).
+ */
+public class KsuidGenerator {
+    /** Ksuids per clock read and entropy call when generating in bulk */
+    static final int BATCH_SIZE = 1024;
+
+    private final EntropySource entropySource;
+    private final LongSupplier epochSeconds;
+
+    static KsuidGenerator shared() {
+        return Holder.SHARED;
+    }
+
+    public KsuidGenerator() {
+        this(EntropySource.defaultSource());
+    }
+
+    public KsuidGenerator(EntropySource entropySource) {
+        this(entropySource, Ksuid::currentEpochSeconds);
+    }
+
+    /**
+     * @param entropySource source of randomness
+     * @param clock source of the current time
+     */
+    public KsuidGenerator(EntropySource entropySource, Clock clock) {
+        this(entropySource, epochSeconds(clock));
+    }
+
+    /**
+     * @param entropySource source of randomness
+     * @param epochSeconds supplies the current unix time in seconds - eg: a {@link CachedSecondsClock}
+     */
+    public KsuidGenerator(EntropySource entropySource, LongSupplier epochSeconds) {
+        if (entropySource == null) throw new IllegalArgumentException("entropySource is required");
+        if (epochSeconds == null) throw new IllegalArgumentException("epochSeconds is required");
+        this.entropySource = entropySource;
+        this.epochSeconds = epochSeconds;
+    }
+
+    static LongSupplier epochSeconds(Clock clock) {
+        if (clock == null) throw new IllegalArgumentException("clock is required");
+        return () -> Math.floorDiv(clock.millis(), 1000L);
+    }
+
+    /**
+     * @return a new Ksuid for the current time
+     */
+    public Ksuid next() {
+        if (KsuidMetrics.ENABLED) {
+            KsuidEvents.Generation event = KsuidEvents.beginGeneration();
+            Ksuid ksuid = next(currentRawKsuidEpoch());
+            KsuidEvents.endGeneration(event, this, 1);
+            return ksuid;
+        }
+        return next(currentRawKsuidEpoch());
+    }
+
+    /**
+     * Sets a new value on a Ksuid under construction, as per {@link #next()} - so new Ksuid() doesn't need a copy
+     */
+    void init(Ksuid target) {
+        KsuidEvents.Generation event = KsuidMetrics.ENABLED ? KsuidEvents.beginGeneration() : null;
+        byte[] entropy = new byte[Ksuid.entropyLength];
+        nextBytes(entropy);
+        target.init(currentRawKsuidEpoch(), ByteConverter.readLong(entropy, 0), ByteConverter.readLong(entropy, 8));
+        if (KsuidMetrics.ENABLED) KsuidEvents.endGeneration(event, this, 1);
+    }
+
+    /**
+     * @param rawKsuidEpoch timestamp, in seconds since {@link Ksuid#EPOCH_SECONDS}
+     * @return a new Ksuid with fresh entropy
+     */
+    protected Ksuid next(int rawKsuidEpoch) {
+        byte[] entropy = new byte[Ksuid.entropyLength];
+        nextBytes(entropy);
+        return new Ksuid(rawKsuidEpoch, ByteConverter.readLong(entropy, 0), ByteConverter.readLong(entropy, 8));
+    }
+
+    /**
+     * @return the current time, in seconds since {@link Ksuid#EPOCH_SECONDS}
+     */
+    protected int currentRawKsuidEpoch() {
+        return (int) (epochSeconds.getAsLong() - Ksuid.EPOCH_SECONDS);
+    }
+
+    /**
+     * Generates many Ksuids at once.<br/>
+     * The clock is read once per batch of 1024, and the entropy for each batch comes from a single call.
+     *
+     * @param count number of Ksuids
+     * @return a new array of Ksuids
+     */
+    public Ksuid[] generate(int count) {
+        if (count < 0) throw new IllegalArgumentException("count must not be negative");
+        Ksuid[] ksuids = new Ksuid[count];
+        fill(ksuids, 0, count);
+        return ksuids;
+    }
+
+    /**
+     * Fills part of an array with new Ksuids, in batches as per {@link #generate(int)}
+     *
+     * @param dest array to fill
+     * @param from first index (inclusive)
+     * @param to last index (exclusive)
+     */
+    public void fill(Ksuid[] dest, int from, int to) {
+        Objects.checkFromToIndex(from, to, dest.length);
+        KsuidEvents.Generation event = KsuidMetrics.ENABLED ? KsuidEvents.beginGeneration() : null;
+        int count = to - from;
+        byte[] entropy = new byte[Math.min(to - from, BATCH_SIZE) * Ksuid.entropyLength];
+        while (from < to) {
+            int batch = Math.min(to - from, BATCH_SIZE);
+            if (batch * Ksuid.entropyLength < entropy.length) entropy = new byte[batch * Ksuid.entropyLength];
+            nextBytes(entropy);
+            int timestamp = currentRawKsuidEpoch();
+            for(int i = 0; i < batch; i++) {
+                int offset = i * Ksuid.entropyLength;
+                dest[from++] = new Ksuid(timestamp, ByteConverter.readLong(entropy, offset), ByteConverter.readLong(entropy, offset + 8));
+            }
+        }
+        if (KsuidMetrics.ENABLED) KsuidEvents.endGeneration(event, this, count);
+    }
+
+    private void nextBytes(byte[] entropy) {
+        if (KsuidMetrics.ENABLED) KsuidEvents.nextBytes(entropySource, entropy);
+        else entropySource.nextBytes(entropy);
+    }
+
+    /**
+     * An endless, sequential stream of new Ksuids, generated in batches as per {@link #generate(int)}
+     *
+     * @return a stream of new Ksuids
+     */
+    public Stream<Ksuid> stream() {
+        Iterator<Ksuid> batches = new Iterator<>() {
+            private final Ksuid[] batch = new Ksuid[BATCH_SIZE];
+            private int index = BATCH_SIZE;
+
+            @Override
+            public boolean hasNext() {
+                return true;
+            }
+
+            @Override
+            public Ksuid next() {
+                if (index == BATCH_SIZE) {
+                    fill(batch, 0, BATCH_SIZE);
+                    index = 0;
+                }
+                return batch[index++];
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(batches, Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.DISTINCT), false);
+    }
+
+    public EntropySource getEntropySource() {
+        return entropySource;
+    }
+
+    private static class Holder {
+        static final KsuidGenerator SHARED = new KsuidGenerator();
+    }
+}
@@ -0,0 +1,202 @@
+package com.kncept.ksuid;
+
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+
+/**
+ * Open addressing (linear probing) hash table of raw 160 bit Ksuid values, shared by {@link KsuidSet} and {@link KsuidMap}.<br/>
+ *
+ * Keys are stored inline in primitive arrays - no per entry objects. The entropy bits are already random,
+ * so one multiply is enough to spread them (and still copes with sequential values, eg: from a {@link MonotonicKsuidGenerator}).<br/>
+ * Removal uses backward shifting, so there are no tombstones to clean up.
+ */
+abstract class KsuidHashTable {
+    private static final float LOAD_FACTOR = 0.75f;
+    /** the largest power of two array size */
+    static final int MAXIMUM_CAPACITY = 1 << 30;
+    static final int MAXIMUM_SIZE = (int) (MAXIMUM_CAPACITY * LOAD_FACTOR);
+
+    private int[] timestamps;
+    private long[] entropyHigh;
+    private long[] entropyLow;
+    private boolean[] used;
+    /** values for a map, or null for a set */
+    Object[] values;
+    private final boolean withValues;
+    private int size;
+    private int shift;
+    private int threshold;
+
+    KsuidHashTable(int expectedSize, boolean withValues) {
+        if (expectedSize < 0) throw new IllegalArgumentException("expectedSize must not be negative");
+        if (expectedSize > MAXIMUM_SIZE) throw new IllegalArgumentException("expectedSize must be at most " + MAXIMUM_SIZE);
+        this.withValues = withValues;
+        int capacity = Integer.highestOneBit(Math.max(4, (int) Math.ceil(expectedSize / LOAD_FACTOR)));
+        if (capacity * LOAD_FACTOR < expectedSize) capacity <<= 1;
+        allocate(capacity);
+    }
+
+    private void allocate(int capacity) {
+        timestamps = new int[capacity];
+        entropyHigh = new long[capacity];
+        entropyLow = new long[capacity];
+        used = new boolean[capacity];
+        values = withValues ? new Object[capacity] : null;
+        shift = 64 - Integer.numberOfTrailingZeros(capacity);
+        threshold = (int) (capacity * LOAD_FACTOR);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        Arrays.fill(used, false);
+        if (values != null) Arrays.fill(values, null);
+        size = 0;
+    }
+
+    private int slot(long high, long low) {
+        // fibonacci hashing - the top bits of the product
+        return (int) (((high ^ low) * 0x9E3779B97F4A7C15L) >>> shift);
+    }
+
+    /**
+     * @return the slot holding the key, or -1
+     */
+    int find(Ksuid ksuid) {
+        int mask = used.length - 1;
+        int timestamp = ksuid.getRawKsuidEpoch();
+        long high = ksuid.entropyHigh();
+        long low = ksuid.entropyLow();
+        for(int slot = slot(high, low); used[slot]; slot = (slot + 1) & mask) {
+            if (entropyLow[slot] == low && entropyHigh[slot] == high && timestamps[slot] == timestamp) return slot;
+        }
+        return -1;
+    }
+
+    /**
+     * @return the slot holding the key if it was already present, or (-slot - 1) if it was added
+     */
+    int insert(Ksuid ksuid) {
+        int timestamp = ksuid.getRawKsuidEpoch();
+        long high = ksuid.entropyHigh();
+        long low = ksuid.entropyLow();
+        int mask = used.length - 1;
+        int slot = slot(high, low);
+        for(; used[slot]; slot = (slot + 1) & mask) {
+            if (entropyLow[slot] == low && entropyHigh[slot] == high && timestamps[slot] == timestamp) return slot;
+        }
+        if (size >= threshold) {
+            if (used.length == MAXIMUM_CAPACITY) throw new IllegalStateException("Full - at most " + MAXIMUM_SIZE + " Ksuids can be held");
+            resize(used.length << 1);
+            return insert(ksuid);
+        }
+        timestamps[slot] = timestamp;
+        entropyHigh[slot] = high;
+        entropyLow[slot] = low;
+        used[slot] = true;
+        size++;
+        return -slot - 1;
+    }
+
+    /**
+     * Removes the entry in a slot, shifting back any later entries in the same cluster
+     */
+    void removeSlot(int slot) {
+        int mask = used.length - 1;
+        int gap = slot;
+        int next = (gap + 1) & mask;
+        while (used[next]) {
+            int home = slot(entropyHigh[next], entropyLow[next]);
+            // move the entry back if the gap lies between its home slot and where it is now (cyclically)
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                timestamps[gap] = timestamps[next];
+                entropyHigh[gap] = entropyHigh[next];
+                entropyLow[gap] = entropyLow[next];
+                if (values != null) values[gap] = values[next];
+                gap = next;
+            }
+            next = (next + 1) & mask;
+        }
+        used[gap] = false;
+        if (values != null) values[gap] = null;
+        size--;
+    }
+
+    /**
+     * Bulk removal for sliding windows - removes every entry created before the cutoff (to the second)
+     * @param cutoff the oldest time to keep
+     * @return the number of entries removed
+     */
+    public int removeBefore(ZonedDateTime cutoff) {
+        long target = cutoff.toEpochSecond() - Ksuid.EPOCH_SECONDS;
+        if (target <= 0) return 0;
+        if (target > 0xFFFFFFFFL) {
+            int removed = size;
+            clear();
+            return removed;
+        }
+        int rawCutoff = (int) target;
+
+        // rebuild, keeping the survivors. Cheaper than shifting clusters one removal at a time
+        int[] oldTimestamps = timestamps;
+        long[] oldHigh = entropyHigh;
+        long[] oldLow = entropyLow;
+        boolean[] oldUsed = used;
+        Object[] oldValues = values;
+        int before = size;
+        allocate(oldUsed.length);
+        size = 0;
+        int mask = used.length - 1;
+        for(int i = 0; i < oldUsed.length; i++) {
+            if (!oldUsed[i]) continue;
+            if (Integer.compareUnsigned(oldTimestamps[i], rawCutoff) < 0) continue;
+            int slot = slot(oldHigh[i], oldLow[i]);
+            while (used[slot]) slot = (slot + 1) & mask;
+            timestamps[slot] = oldTimestamps[i];
+            entropyHigh[slot] = oldHigh[i];
+            entropyLow[slot] = oldLow[i];
+            used[slot] = true;
+            if (oldValues != null) values[slot] = oldValues[i];
+            size++;
+        }
+        return before - size;
+    }
+
+    private void resize(int capacity) {
+        int[] oldTimestamps = timestamps;
+        long[] oldHigh = entropyHigh;
+        long[] oldLow = entropyLow;
+        boolean[] oldUsed = used;
+        Object[] oldValues = values;
+        allocate(capacity);
+        int mask = capacity - 1;
+        for(int i = 0; i < oldUsed.length; i++) {
+            if (!oldUsed[i]) continue;
+            int slot = slot(oldHigh[i], oldLow[i]);
+            while (used[slot]) slot = (slot + 1) & mask;
+            timestamps[slot] = oldTimestamps[i];
+            entropyHigh[slot] = oldHigh[i];
+            entropyLow[slot] = oldLow[i];
+            used[slot] = true;
+            if (oldValues != null) values[slot] = oldValues[i];
+        }
+    }
+
+    int capacity() {
+        return used.length;
+    }
+
+    boolean isUsed(int slot) {
+        return used[slot];
+    }
+
+    Ksuid keyAt(int slot) {
+        return new Ksuid(timestamps[slot], entropyHigh[slot], entropyLow[slot]);
+    }
+}
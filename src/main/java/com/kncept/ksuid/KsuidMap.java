@@ -0,0 +1,78 @@
+package com.kncept.ksuid;
+
+import java.util.function.BiConsumer;
+
+/**
+ * A hash map keyed by Ksuid.<br/>
+ *
+ * Keys are stored as raw 160 bit values inline in primitive arrays (open addressing, linear probing),
+ * alongside a parallel array of values, so there is no boxing or per entry node.
+ * Use {@link #removeBefore(java.time.ZonedDateTime)} to expire old entries from a sliding window.<br/>
+ * Not thread safe.
+ *
+ * @param <V> value type
+ */
+public class KsuidMap<V> extends KsuidHashTable {
+
+    public KsuidMap() {
+        this(16);
+    }
+
+    /**
+     * @param expectedSize number of entries to hold without resizing
+     */
+    public KsuidMap(int expectedSize) {
+        super(expectedSize, true);
+    }
+
+    /**
+     * @return the previous value, or null
+     */
+    public V put(Ksuid key, V value) {
+        int slot = insert(key);
+        if (slot < 0) {
+            values[-slot - 1] = value;
+            return null;
+        }
+        V previous = value(slot);
+        values[slot] = value;
+        return previous;
+    }
+
+    /**
+     * @return the value, or null if the key is not present
+     */
+    public V get(Ksuid key) {
+        int slot = find(key);
+        return slot < 0 ? null : value(slot);
+    }
+
+    public boolean containsKey(Ksuid key) {
+        return find(key) >= 0;
+    }
+
+    /**
+     * @return the removed value, or null if the key was not present
+     */
+    public V remove(Ksuid key) {
+        int slot = find(key);
+        if (slot < 0) return null;
+        V previous = value(slot);
+        removeSlot(slot);
+        return previous;
+    }
+
+    /**
+     * Visits each entry, in no particular order
+     */
+    public void forEach(BiConsumer<Ksuid, ? super V> action) {
+        for(int slot = 0; slot < capacity(); slot++) {
+            if (isUsed(slot)) action.accept(keyAt(slot), value(slot));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private V value(int slot) {
+        return (V) values[slot];
+    }
+}
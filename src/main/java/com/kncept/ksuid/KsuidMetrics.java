@@ -0,0 +1,85 @@
+package com.kncept.ksuid;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Opt-in counters for Ksuid generation, parsing and entropy, to bridge into a metrics system.<br/>
+ *
+ * Enable with -Dcom.kncept.ksuid.metrics=true. The flag is read once, into a constant, so when it is off the
+ * instrumentation is compiled away and costs nothing. When it is on, the same call sites also emit
+ * JDK Flight Recorder events (category "Ksuid"): entropy refills, slow generation and parse failures.<br/>
+ * Counters are cumulative since startup (or the last {@link #reset()}), and always zero when disabled.
+ */
+public final class KsuidMetrics {
+    static final boolean ENABLED = Boolean.getBoolean("com.kncept.ksuid.metrics");
+
+    private static final LongAdder generated = new LongAdder();
+    private static final LongAdder parses = new LongAdder();
+    private static final LongAdder parseFailures = new LongAdder();
+    private static final LongAdder entropyRefills = new LongAdder();
+    private static final LongAdder entropyNanos = new LongAdder();
+
+    private KsuidMetrics() {
+    }
+
+    public static boolean isEnabled() {
+        return ENABLED;
+    }
+
+    /** Ksuids generated with new entropy, or from a generator */
+    public static long generated() {
+        return generated.sum();
+    }
+
+    /** base62 and base16 decodes, including failures */
+    public static long parses() {
+        return parses.sum();
+    }
+
+    public static long parseFailures() {
+        return parseFailures.sum();
+    }
+
+    /** calls to an EntropySource */
+    public static long entropyRefills() {
+        return entropyRefills.sum();
+    }
+
+    /** total time spent waiting on an EntropySource */
+    public static long entropyNanos() {
+        return entropyNanos.sum();
+    }
+
+    /** hits in the cache behind {@link Ksuid#parseCached(String)}. Counted even when disabled */
+    public static long cacheHits() {
+        return KsuidCache.shared().hits();
+    }
+
+    /** misses in the cache behind {@link Ksuid#parseCached(String)}. Counted even when disabled */
+    public static long cacheMisses() {
+        return KsuidCache.shared().misses();
+    }
+
+    /** Zeroes the counters (except the cache, see {@link KsuidCache#clear()}) */
+    public static void reset() {
+        generated.reset();
+        parses.reset();
+        parseFailures.reset();
+        entropyRefills.reset();
+        entropyNanos.reset();
+    }
+
+    static void generated(int count) {
+        generated.add(count);
+    }
+
+    static void parsed(boolean failed) {
+        parses.increment();
+        if (failed) parseFailures.increment();
+    }
+
+    static void entropy(long nanos) {
+        entropyRefills.increment();
+        entropyNanos.add(nanos);
+    }
+}
@@ -0,0 +1,140 @@
+package com.kncept.ksuid;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Parses large batches of encoded Ksuids in parallel.<br/>
+ *
+ * The input is split into chunks that are parsed on the common fork-join pool (or a supplied Executor).
+ * Invalid values never throw - they are reported by index in the {@link Result}, so a whole batch can be
+ * validated in one pass. Small batches are parsed on the calling thread.
+ */
+public final class KsuidParser {
+    /** values per parallel task */
+    static final int CHUNK_SIZE = 8192;
+
+    private KsuidParser() {
+    }
+
+    /**
+     * @param values base62 or base16 encoded Ksuids. Nulls are reported as invalid
+     * @return the parsed Ksuids, in the same order
+     */
+    public static Result parse(String[] values) {
+        return parse(Arrays.asList(values), ForkJoinPool.commonPool());
+    }
+
+    public static Result parse(String[] values, Executor executor) {
+        return parse(Arrays.asList(values), executor);
+    }
+
+    public static Result parse(List<? extends CharSequence> values) {
+        return parse(values, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param values base62 or base16 encoded Ksuids. Nulls are reported as invalid.
+     *               Should be a random access List, as each task reads its own range
+     * @param executor runs the chunks in parallel
+     * @return the parsed Ksuids, in the same order
+     */
+    public static Result parse(List<? extends CharSequence> values, Executor executor) {
+        if (values == null) throw new IllegalArgumentException("values are required");
+        if (executor == null) throw new IllegalArgumentException("executor is required");
+        int size = values.size();
+        Ksuid[] ksuids = new Ksuid[size];
+        int chunks = (size + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        int[][] invalid = new int[chunks][];
+        if (chunks <= 1) {
+            if (chunks == 1) invalid[0] = parseChunk(values, ksuids, 0, size);
+        } else {
+            CompletableFuture<?>[] tasks = new CompletableFuture<?>[chunks];
+            for(int chunk = 0; chunk < chunks; chunk++) {
+                int index = chunk;
+                int from = chunk * CHUNK_SIZE;
+                int to = Math.min(size, from + CHUNK_SIZE);
+                tasks[chunk] = CompletableFuture.runAsync(() -> invalid[index] = parseChunk(values, ksuids, from, to), executor);
+            }
+            CompletableFuture.allOf(tasks).join();
+        }
+
+        // chunks are in order, so their invalid indexes are too
+        int count = 0;
+        for(int[] indexes : invalid) count += indexes.length;
+        int[] invalidIndexes = new int[count];
+        int offset = 0;
+        for(int[] indexes : invalid) {
+            System.arraycopy(indexes, 0, invalidIndexes, offset, indexes.length);
+            offset += indexes.length;
+        }
+        return new Result(ksuids, invalidIndexes);
+    }
+
+    /**
+     * @return the indexes of invalid values
+     */
+    private static int[] parseChunk(List<? extends CharSequence> values, Ksuid[] dest, int from, int to) {
+        int[] invalid = null;
+        int count = 0;
+        for(int i = from; i < to; i++) {
+            Ksuid ksuid = Ksuid.tryParse(values.get(i));
+            dest[i] = ksuid;
+            if (ksuid == null) {
+                if (invalid == null) invalid = new int[8];
+                else if (count == invalid.length) invalid = Arrays.copyOf(invalid, count * 2);
+                invalid[count++] = i;
+            }
+        }
+        return invalid == null ? new int[0] : Arrays.copyOf(invalid, count);
+    }
+
+    /**
+     * The outcome of a bulk parse
+     */
+    public static final class Result {
+        private final Ksuid[] ksuids;
+        private final int[] invalidIndexes;
+
+        private Result(Ksuid[] ksuids, int[] invalidIndexes) {
+            this.ksuids = ksuids;
+            this.invalidIndexes = invalidIndexes;
+        }
+
+        /**
+         * @return a Ksuid for each input value, in order, with null for each invalid value
+         */
+        public Ksuid[] ksuids() {
+            return ksuids;
+        }
+
+        /**
+         * @return the indexes of the invalid values, ascending
+         */
+        public int[] invalidIndexes() {
+            return invalidIndexes.clone();
+        }
+
+        public boolean allValid() {
+            return invalidIndexes.length == 0;
+        }
+
+        public int validCount() {
+            return ksuids.length - invalidIndexes.length;
+        }
+
+        /**
+         * @return the valid Ksuids, in order, packed into a {@link KsuidArray}
+         */
+        public KsuidArray toKsuidArray() {
+            KsuidArray array = new KsuidArray(validCount());
+            for(Ksuid ksuid : ksuids) {
+                if (ksuid != null) array.add(ksuid);
+            }
+            return array;
+        }
+    }
+}
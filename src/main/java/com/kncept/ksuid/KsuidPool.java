@@ -0,0 +1,139 @@
+package com.kncept.ksuid;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A pool of ready made Ksuids, for latency critical paths.<br/>
+ *
+ * A daemon thread keeps a lock-free queue topped up with Ksuids from a generator, with their base62 form already
+ * encoded, so {@link #take()} is a single queue poll. The same thread discards Ksuids older than the maximum age
+ * (checking a few times a second), so a taken Ksuid's timestamp is at most a little over that age.<br/>
+ * If the pool is empty, take() falls back to generating directly. Close it to stop the replenishing thread.
+ */
+public class KsuidPool implements AutoCloseable {
+    public static final int DEFAULT_CAPACITY = 4096;
+    public static final Duration DEFAULT_MAX_AGE = Duration.ofSeconds(2);
+    private static final long CHECK_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final KsuidGenerator generator;
+    private final int capacity;
+    private final int maxAgeSeconds;
+    private final ConcurrentLinkedQueue<Ksuid> queue = new ConcurrentLinkedQueue<>();
+    // ConcurrentLinkedQueue.size() walks the queue, so track it separately
+    private final AtomicInteger size = new AtomicInteger();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder discarded = new LongAdder();
+    private final Thread replenisher;
+    private volatile boolean running = true;
+
+    public KsuidPool() {
+        this(new KsuidGenerator(), DEFAULT_CAPACITY, DEFAULT_MAX_AGE);
+    }
+
+    /**
+     * @param generator source of new Ksuids, also used for its clock
+     * @param capacity number of Ksuids kept ready
+     * @param maxAge how old (to the second) a pooled Ksuid can get before it is discarded
+     */
+    public KsuidPool(KsuidGenerator generator, int capacity, Duration maxAge) {
+        if (generator == null) throw new IllegalArgumentException("generator is required");
+        if (capacity < 1) throw new IllegalArgumentException("capacity must be positive");
+        if (maxAge == null || maxAge.isNegative()) throw new IllegalArgumentException("maxAge must not be negative");
+        this.generator = generator;
+        this.capacity = capacity;
+        this.maxAgeSeconds = (int) Math.min(Integer.MAX_VALUE, maxAge.getSeconds());
+        replenisher = new Thread(this::replenish, "ksuid-pool");
+        replenisher.setDaemon(true);
+        replenisher.start();
+    }
+
+    /**
+     * @return a pooled Ksuid, or a newly generated one if the pool is empty
+     */
+    public Ksuid take() {
+        Ksuid ksuid = queue.poll();
+        if (ksuid == null) {
+            misses.increment();
+            LockSupport.unpark(replenisher);
+            return generator.next();
+        }
+        // wake the replenisher as the pool drops below half
+        if (size.decrementAndGet() == capacity / 2) LockSupport.unpark(replenisher);
+        return ksuid;
+    }
+
+    private void replenish() {
+        Ksuid[] batch = new Ksuid[Math.min(capacity, KsuidGenerator.BATCH_SIZE)];
+        while (running) {
+            discardStale();
+            int missing = capacity - size.get();
+            if (missing > 0) {
+                int count = Math.min(missing, batch.length);
+                generator.fill(batch, 0, count);
+                for(int i = 0; i < count; i++) {
+                    batch[i].toBase62(); // cached in the Ksuid
+                    // counted before it can be taken, so size never goes negative, and passes through every value
+                    // on the way down (for the exact half way wake up check in take)
+                    size.incrementAndGet();
+                    queue.add(batch[i]);
+                    batch[i] = null;
+                }
+            } else {
+                // full - takers unpark us as the pool drains
+                LockSupport.parkNanos(this, CHECK_INTERVAL_NANOS);
+            }
+        }
+    }
+
+    // the queue is oldest first, so only the head needs checking
+    private void discardStale() {
+        int now = generator.currentRawKsuidEpoch();
+        Ksuid head;
+        while ((head = queue.peek()) != null && now - head.getRawKsuidEpoch() > maxAgeSeconds) {
+            if (queue.remove(head)) {
+                size.decrementAndGet();
+                discarded.increment();
+            }
+        }
+    }
+
+    /**
+     * @return the number of Ksuids ready to take
+     */
+    public int size() {
+        return size.get();
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * @return the number of takes that found the pool empty, and generated directly
+     */
+    public long misses() {
+        return misses.sum();
+    }
+
+    /**
+     * @return the number of pooled Ksuids discarded for being too old
+     */
+    public long discarded() {
+        return discarded.sum();
+    }
+
+    boolean isReplenishing() {
+        return replenisher.isAlive();
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(replenisher);
+    }
+}
@@ -0,0 +1,55 @@
+package com.kncept.ksuid;
+
+import java.util.function.Consumer;
+
+/**
+ * A hash set of Ksuids, for deduplication.<br/>
+ *
+ * Stores the raw 160 bit values inline in primitive arrays (open addressing, linear probing),
+ * so there is no boxing or per entry node. Use {@link #removeBefore(java.time.ZonedDateTime)}
+ * to expire old entries from a sliding window.<br/>
+ * Not thread safe.
+ */
+public class KsuidSet extends KsuidHashTable {
+
+    public KsuidSet() {
+        this(16);
+    }
+
+    /**
+     * @param expectedSize number of entries to hold without resizing
+     */
+    public KsuidSet(int expectedSize) {
+        super(expectedSize, false);
+    }
+
+    /**
+     * @return true if the ksuid was not already present
+     */
+    public boolean add(Ksuid ksuid) {
+        return insert(ksuid) < 0;
+    }
+
+    public boolean contains(Ksuid ksuid) {
+        return find(ksuid) >= 0;
+    }
+
+    /**
+     * @return true if the ksuid was present
+     */
+    public boolean remove(Ksuid ksuid) {
+        int slot = find(ksuid);
+        if (slot < 0) return false;
+        removeSlot(slot);
+        return true;
+    }
+
+    /**
+     * Visits each entry, in no particular order
+     */
+    public void forEach(Consumer<Ksuid> action) {
+        for(int slot = 0; slot < capacity(); slot++) {
+            if (isUsed(slot)) action.accept(keyAt(slot));
+        }
+    }
+}
@@ -0,0 +1,252 @@
+package com.kncept.ksuid;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+/**
+ * Sorting and merging for large numbers of Ksuids.<br/>
+ *
+ * {@link #sort(Ksuid[])} is an LSD radix sort over the raw 20 bytes - one counting pass, then a stable scatter per byte
+ * over packed copies of the keys.
+ * Bytes that are the same in every Ksuid (eg: the top timestamp bytes of Ksuids from the same day) are skipped.
+ * Small arrays use a comparison sort.<br/>
+ * {@link #merge(List)} combines sorted sources into one sorted stream with a tournament (loser) tree,
+ * so each Ksuid costs log2(k) comparisons for k sources.
+ */
+public final class KsuidSort {
+    /** below this, a comparison sort is faster than the radix passes */
+    static final int RADIX_THRESHOLD = 256;
+    private static final int DIGITS = Ksuid.totalLength;
+
+    private KsuidSort() {
+    }
+
+    /**
+     * Sorts into Ksuid order (unsigned, by the raw 20 bytes), which is time order.
+     * The array must not contain nulls.
+     */
+    public static void sort(Ksuid[] ksuids) {
+        sort(ksuids, 0, ksuids.length);
+    }
+
+    /**
+     * @param from first index to sort (inclusive)
+     * @param to last index to sort (exclusive)
+     */
+    public static void sort(Ksuid[] ksuids, int from, int to) {
+        Objects.checkFromToIndex(from, to, ksuids.length);
+        int size = to - from;
+        if (size < RADIX_THRESHOLD) {
+            Arrays.sort(ksuids, from, to);
+            return;
+        }
+
+        // the passes run over packed keys rather than chasing a reference per Ksuid per pass,
+        // carrying each Ksuid's position along so they can be moved once at the end
+        int[] timestamps = new int[size];
+        long[] entropyHigh = new long[size];
+        long[] entropyLow = new long[size];
+        int[] order = new int[size];
+        for(int i = 0; i < size; i++) {
+            Ksuid ksuid = ksuids[from + i];
+            timestamps[i] = ksuid.getRawKsuidEpoch();
+            entropyHigh[i] = ksuid.entropyHigh();
+            entropyLow[i] = ksuid.entropyLow();
+            order[i] = from + i;
+        }
+        sort(timestamps, entropyHigh, entropyLow, order, size);
+        Ksuid[] sorted = new Ksuid[size];
+        for(int i = 0; i < size; i++) sorted[i] = ksuids[order[i]];
+        System.arraycopy(sorted, 0, ksuids, from, size);
+    }
+
+    /**
+     * Sorts a packed array, as per {@link KsuidArray#sort()}
+     */
+    public static void sort(KsuidArray ksuids) {
+        ksuids.sort();
+    }
+
+    /**
+     * Radix sorts the first size entries of the packed columns of a {@link KsuidArray}
+     */
+    static void sort(int[] timestamps, long[] entropyHigh, long[] entropyLow, int size) {
+        sort(timestamps, entropyHigh, entropyLow, null, size);
+    }
+
+    /**
+     * @param order an optional extra column, moved along with the entries
+     */
+    private static void sort(int[] timestamps, long[] entropyHigh, long[] entropyLow, int[] order, int size) {
+        int[][] counts = new int[DIGITS][256];
+        for(int i = 0; i < size; i++) count(counts, timestamps[i], entropyHigh[i], entropyLow[i]);
+
+        int[] srcTimestamps = timestamps;
+        long[] srcHigh = entropyHigh;
+        long[] srcLow = entropyLow;
+        int[] destTimestamps = new int[size];
+        long[] destHigh = new long[size];
+        long[] destLow = new long[size];
+        int[] srcOrder = order;
+        int[] destOrder = order == null ? null : new int[size];
+        int[] offsets = new int[256];
+        for(int digit = 0; digit < DIGITS; digit++) {
+            if (!offsets(counts[digit], size, digit(digit, timestamps[0], entropyHigh[0], entropyLow[0]), offsets)) continue;
+            for(int i = 0; i < size; i++) {
+                int timestamp = srcTimestamps[i];
+                long high = srcHigh[i];
+                long low = srcLow[i];
+                int index = offsets[digit(digit, timestamp, high, low)]++;
+                destTimestamps[index] = timestamp;
+                destHigh[index] = high;
+                destLow[index] = low;
+                if (srcOrder != null) destOrder[index] = srcOrder[i];
+            }
+            int[] swapTimestamps = srcTimestamps;
+            srcTimestamps = destTimestamps;
+            destTimestamps = swapTimestamps;
+            long[] swapHigh = srcHigh;
+            srcHigh = destHigh;
+            destHigh = swapHigh;
+            long[] swapLow = srcLow;
+            srcLow = destLow;
+            destLow = swapLow;
+            int[] swapOrder = srcOrder;
+            srcOrder = destOrder;
+            destOrder = swapOrder;
+        }
+        if (srcTimestamps != timestamps) {
+            System.arraycopy(srcTimestamps, 0, timestamps, 0, size);
+            System.arraycopy(srcHigh, 0, entropyHigh, 0, size);
+            System.arraycopy(srcLow, 0, entropyLow, 0, size);
+            if (order != null) System.arraycopy(srcOrder, 0, order, 0, size);
+        }
+    }
+
+    private static void count(int[][] counts, int timestamp, long high, long low) {
+        for(int digit = 0; digit < DIGITS; digit++) counts[digit][digit(digit, timestamp, high, low)]++;
+    }
+
+    /**
+     * Turns the counts into starting offsets
+     *
+     * @param firstValue the digit of any one entry
+     * @return false if every entry has the same digit, so the pass can be skipped
+     */
+    private static boolean offsets(int[] counts, int size, int firstValue, int[] offsets) {
+        if (counts[firstValue] == size) return false;
+        int offset = 0;
+        for(int value = 0; value < 256; value++) {
+            offsets[value] = offset;
+            offset += counts[value];
+        }
+        return true;
+    }
+
+    /**
+     * @param digit byte index, with 0 the least significant (the last raw byte)
+     */
+    private static int digit(int digit, int timestamp, long high, long low) {
+        if (digit < 8) return (int) (low >>> (digit << 3)) & 0xFF;
+        if (digit < 16) return (int) (high >>> ((digit - 8) << 3)) & 0xFF;
+        return (timestamp >>> ((digit - 16) << 3)) & 0xFF;
+    }
+
+    /**
+     * Merges sorted sources into one sorted iterator.<br/>
+     * Sources are read lazily, one Ksuid ahead. Duplicates are kept, with equal Ksuids returned in source order.
+     *
+     * @param sources each in Ksuid order. An out of order Ksuid throws an IllegalStateException when it is read
+     * @return all the Ksuids from all the sources, in order
+     */
+    public static Iterator<Ksuid> merge(List<? extends Iterator<Ksuid>> sources) {
+        if (sources == null) throw new IllegalArgumentException("sources are required");
+        return new MergeIterator(sources);
+    }
+
+    @SafeVarargs
+    public static Iterator<Ksuid> merge(Iterator<Ksuid>... sources) {
+        List<Iterator<Ksuid>> list = new ArrayList<>(sources.length);
+        for(Iterator<Ksuid> source : sources) list.add(source);
+        return merge(list);
+    }
+
+    /**
+     * A loser tree. Leaf nodes k..2k-1 are the sources, internal node n has children 2n and 2n+1
+     * and holds the source that lost there. Node 0 holds the overall winner.
+     * Exhausted sources have a null head, which loses to everything.
+     */
+    private static class MergeIterator implements Iterator<Ksuid> {
+        private final Iterator<Ksuid>[] sources;
+        private final Ksuid[] heads;
+        private final int[] tree;
+
+        @SuppressWarnings("unchecked")
+        MergeIterator(List<? extends Iterator<Ksuid>> sources) {
+            int k = sources.size();
+            this.sources = sources.toArray((Iterator<Ksuid>[]) new Iterator<?>[k]);
+            heads = new Ksuid[k];
+            tree = new int[Math.max(1, k)];
+            for(int i = 0; i < k; i++) {
+                if (this.sources[i] == null) throw new IllegalArgumentException("source " + i + " is null");
+                heads[i] = read(i, null);
+            }
+            if (k > 0) tree[0] = build(1);
+        }
+
+        private int build(int node) {
+            int k = heads.length;
+            if (node >= k) return node - k;
+            int a = build(node << 1);
+            int b = build((node << 1) + 1);
+            if (beats(a, b)) {
+                tree[node] = b;
+                return a;
+            }
+            tree[node] = a;
+            return b;
+        }
+
+        private boolean beats(int a, int b) {
+            if (heads[a] == null) return false;
+            if (heads[b] == null) return true;
+            int result = heads[a].compareTo(heads[b]);
+            return result < 0 || (result == 0 && a < b);
+        }
+
+        private Ksuid read(int source, Ksuid previous) {
+            if (!sources[source].hasNext()) return null;
+            Ksuid ksuid = sources[source].next();
+            if (ksuid == null) throw new IllegalStateException("source " + source + " returned null");
+            if (previous != null && ksuid.compareTo(previous) < 0) throw new IllegalStateException("source " + source + " is not sorted: " + ksuid + " after " + previous);
+            return ksuid;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return heads.length > 0 && heads[tree[0]] != null;
+        }
+
+        @Override
+        public Ksuid next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            int winner = tree[0];
+            Ksuid result = heads[winner];
+            heads[winner] = read(winner, result);
+            // replay the winner's path to the root
+            for(int node = (winner + heads.length) >>> 1; node > 0; node >>>= 1) {
+                if (beats(tree[node], winner)) {
+                    int loser = winner;
+                    winner = tree[node];
+                    tree[node] = loser;
+                }
+            }
+            tree[0] = winner;
+            return result;
+        }
+    }
+}
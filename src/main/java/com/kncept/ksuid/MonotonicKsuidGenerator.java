@@ -0,0 +1,106 @@
+package com.kncept.ksuid;
+
+import java.time.Clock;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+
+/**
+ * Generates strictly increasing Ksuids.<br/>
+ *
+ * The first Ksuid in each second gets fresh entropy. After that, each Ksuid in the same second is the previous
+ * one plus one (treating the 20 bytes as a 160 bit number), similar to segmentio's Sequence.<br/>
+ * The last issued Ksuid is swapped in with compareAndSet, so this is thread safe without locking.
+ * If the clock goes backwards, the sequence simply continues from the last issued Ksuid.
+ */
+public class MonotonicKsuidGenerator extends KsuidGenerator {
+    private final AtomicReference<Ksuid> last = new AtomicReference<>();
+
+    public MonotonicKsuidGenerator() {
+        super();
+    }
+
+    public MonotonicKsuidGenerator(EntropySource entropySource) {
+        super(entropySource);
+    }
+
+    public MonotonicKsuidGenerator(EntropySource entropySource, Clock clock) {
+        super(entropySource, clock);
+    }
+
+    public MonotonicKsuidGenerator(EntropySource entropySource, LongSupplier epochSeconds) {
+        super(entropySource, epochSeconds);
+    }
+
+    @Override
+    public Ksuid next() {
+        if (KsuidMetrics.ENABLED) {
+            KsuidEvents.Generation event = KsuidEvents.beginGeneration();
+            Ksuid ksuid = reserve(1);
+            KsuidEvents.endGeneration(event, this, 1);
+            return ksuid;
+        }
+        return reserve(1);
+    }
+
+    /**
+     * Fills the range with consecutive Ksuids, reserved with a single compareAndSet
+     */
+    @Override
+    public void fill(Ksuid[] dest, int from, int to) {
+        Objects.checkFromToIndex(from, to, dest.length);
+        if (from == to) return;
+        KsuidEvents.Generation event = KsuidMetrics.ENABLED ? KsuidEvents.beginGeneration() : null;
+        Ksuid end = reserve(to - from);
+        // walk back from the end of the reserved range
+        for(int i = to - 1; i >= from; i--) {
+            dest[i] = end;
+            if (i > from) end = add(end, -1L);
+        }
+        if (KsuidMetrics.ENABLED) KsuidEvents.endGeneration(event, this, to - from);
+    }
+
+    /**
+     * Claims count consecutive values
+     * @return the last value in the claimed range
+     */
+    private Ksuid reserve(int count) {
+        int now = currentRawKsuidEpoch();
+        while (true) {
+            Ksuid previous = last.get();
+            Ksuid first;
+            if (previous == null || Integer.compareUnsigned(now, previous.getRawKsuidEpoch()) > 0) {
+                first = next(now); // new second, new entropy
+            } else {
+                first = add(previous, 1L);
+            }
+            Ksuid end = count == 1 ? first : add(first, count - 1L);
+            if (last.compareAndSet(previous, end)) return end;
+        }
+    }
+
+    /**
+     * 160 bit addition, carrying from the entropy into the timestamp
+     * @param delta a small positive or negative amount
+     */
+    static Ksuid add(Ksuid ksuid, long delta) {
+        long low = ksuid.entropyLow() + delta;
+        long high = ksuid.entropyHigh();
+        int timestamp = ksuid.getRawKsuidEpoch();
+        // unsigned overflow (or underflow for a negative delta) of the low word
+        int carry = delta >= 0
+                ? (Long.compareUnsigned(low, ksuid.entropyLow()) < 0 ? 1 : 0)
+                : (Long.compareUnsigned(low, ksuid.entropyLow()) > 0 ? -1 : 0);
+        if (carry != 0) {
+            long previousHigh = high;
+            high += carry;
+            if (carry > 0 ? high == 0 : previousHigh == 0) {
+                timestamp += carry;
+                if (carry > 0 ? timestamp == 0 : timestamp == -1) {
+                    throw new IllegalStateException("Ksuid sequence exhausted");
+                }
+            }
+        }
+        return new Ksuid(timestamp, high, low);
+    }
+}
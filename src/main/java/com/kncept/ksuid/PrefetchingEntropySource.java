@@ -0,0 +1,177 @@
+package com.kncept.ksuid;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Random bytes prefetched by a dedicated platform thread, so callers never wait on a SecureRandom.<br/>
+ *
+ * The filler thread writes large blocks from the underlying source into a lock-free ring.
+ * Callers claim ranges of the current block with a single atomic add and copy them out - nothing blocks or
+ * synchronizes, so virtual threads never pin their carrier. Every byte is handed out exactly once.<br/>
+ * If the ring is drained faster than it can be refilled, callers use the fallback source directly
+ * (and wake the filler). Close it to stop the filler thread.<br/>
+ * Enable it for new Ksuid() with -Dcom.kncept.ksuid.prefetchEntropy=true
+ */
+public class PrefetchingEntropySource implements EntropySource, AutoCloseable {
+    static final boolean DEFAULT_ENABLED = Boolean.getBoolean("com.kncept.ksuid.prefetchEntropy");
+    /** 1024 Ksuids worth of entropy */
+    public static final int DEFAULT_BLOCK_SIZE = KsuidGenerator.BATCH_SIZE * Ksuid.entropyLength;
+    public static final int DEFAULT_BLOCKS = 8;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final EntropySource source;
+    private final EntropySource fallback;
+    private final int blockSize;
+    // single producer (the filler), many consumers. head and tail only ever increase
+    private final AtomicReferenceArray<Block> ring;
+    private final int mask;
+    private final AtomicLong head = new AtomicLong();
+    private volatile long tail;
+    private final AtomicReference<Block> current = new AtomicReference<>(Block.EMPTY);
+    private final LongAdder fallbacks = new LongAdder();
+    private final Thread filler;
+    private volatile boolean running = true;
+
+    /**
+     * Prefetches from a new SecureRandom, falling back to the default striped pool of SecureRandoms
+     */
+    public PrefetchingEntropySource() {
+        this(EntropySource.of(StripedEntropySource.newSecureRandom()), StripedEntropySource.shared(), DEFAULT_BLOCK_SIZE, DEFAULT_BLOCKS);
+    }
+
+    /**
+     * @param source filled from the prefetch thread only, so it need not be fast or non-blocking
+     * @param fallback used by callers when no prefetched bytes are available
+     * @param blockSize bytes per block
+     * @param blocks blocks kept ready, rounded up to a power of two
+     */
+    public PrefetchingEntropySource(EntropySource source, EntropySource fallback, int blockSize, int blocks) {
+        if (source == null) throw new IllegalArgumentException("source is required");
+        if (fallback == null) throw new IllegalArgumentException("fallback is required");
+        if (blockSize < Ksuid.entropyLength) throw new IllegalArgumentException("blockSize must be at least " + Ksuid.entropyLength);
+        if (blocks < 1) throw new IllegalArgumentException("At least one block is required");
+        this.source = source;
+        this.fallback = fallback;
+        this.blockSize = blockSize;
+        int size = Integer.highestOneBit(blocks);
+        if (size < blocks) size <<= 1;
+        ring = new AtomicReferenceArray<>(size);
+        mask = size - 1;
+        filler = new Thread(this::fill, "ksuid-entropy-prefetch");
+        filler.setDaemon(true);
+        filler.start();
+    }
+
+    static PrefetchingEntropySource shared() {
+        return Holder.SHARED;
+    }
+
+    @Override
+    public void nextBytes(byte[] bytes) {
+        // larger requests (eg: bulk generation) are served a block at a time
+        for(int offset = 0; offset < bytes.length; ) {
+            int length = Math.min(bytes.length - offset, blockSize);
+            if (!claim(bytes, offset, length)) {
+                fallbacks.increment();
+                LockSupport.unpark(filler);
+                if (offset == 0) {
+                    fallback.nextBytes(bytes);
+                } else {
+                    byte[] remaining = new byte[bytes.length - offset];
+                    fallback.nextBytes(remaining);
+                    System.arraycopy(remaining, 0, bytes, offset, remaining.length);
+                }
+                return;
+            }
+            offset += length;
+        }
+    }
+
+    private boolean claim(byte[] dest, int offset, int length) {
+        while (true) {
+            Block block = current.get();
+            // check first, so callers on a drained ring don't keep adding to the counter
+            if (block.claimed.get() <= block.bytes.length - length) {
+                int start = block.claimed.getAndAdd(length);
+                if (start <= block.bytes.length - length) {
+                    System.arraycopy(block.bytes, start, dest, offset, length);
+                    return true;
+                }
+            }
+            Block next = poll();
+            if (next == null) return false;
+            LockSupport.unpark(filler);
+            // if another thread swapped first, this block is dropped - wasteful, but never reused
+            current.compareAndSet(block, next);
+        }
+    }
+
+    private Block poll() {
+        while (true) {
+            long h = head.get();
+            if (h >= tail) return null;
+            // the filler can't overwrite slot h until head moves past it, so a successful CAS owns this block
+            Block block = ring.get((int) h & mask);
+            if (head.compareAndSet(h, h + 1)) return block;
+        }
+    }
+
+    private void fill() {
+        while (running) {
+            long t = tail;
+            if (t - head.get() <= mask) {
+                byte[] bytes = new byte[blockSize];
+                // the real cost of the entropy is here, rather than in the callers copying it out
+                if (KsuidMetrics.ENABLED) KsuidEvents.nextBytes(source, bytes);
+                else source.nextBytes(bytes);
+                ring.set((int) t & mask, new Block(bytes));
+                tail = t + 1; // publish
+            } else {
+                // full - consumers unpark us when they take a block
+                LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+            }
+        }
+    }
+
+    /**
+     * @return the number of requests served by the fallback, because the prefetched bytes ran out
+     */
+    public long fallbacks() {
+        return fallbacks.sum();
+    }
+
+    int readyBlocks() {
+        return (int) (tail - head.get());
+    }
+
+    boolean isFilling() {
+        return filler.isAlive();
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(filler);
+    }
+
+    private static class Block {
+        static final Block EMPTY = new Block(new byte[0]);
+
+        final byte[] bytes;
+        final AtomicInteger claimed = new AtomicInteger();
+
+        Block(byte[] bytes) {
+            this.bytes = bytes;
+        }
+    }
+
+    private static class Holder {
+        static final PrefetchingEntropySource SHARED = new PrefetchingEntropySource();
+    }
+}
@@ -0,0 +1,61 @@
+package com.kncept.ksuid;
+
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A power of two sized pool of SecureRandoms, selected by thread id.<br/>
+ * Each SecureRandom is created when first needed, so unused stripes cost nothing.
+ */
+class StripedEntropySource implements EntropySource {
+    private final AtomicReferenceArray<SecureRandom> stripes;
+    private final int mask;
+
+    StripedEntropySource(int stripes) {
+        if (stripes < 1) throw new IllegalArgumentException("At least one stripe is required");
+        int size = Integer.highestOneBit(stripes);
+        if (size < stripes) size <<= 1;
+        this.stripes = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+    }
+
+    static StripedEntropySource shared() {
+        return Holder.SHARED;
+    }
+
+    @Override
+    public void nextBytes(byte[] bytes) {
+        // pooled threads have sequential ids, so the low bits spread them evenly
+        int index = (int) Thread.currentThread().getId() & mask;
+        SecureRandom random = stripes.get(index);
+        if (random == null) {
+            random = newSecureRandom();
+            if (!stripes.compareAndSet(index, null, random)) random = stripes.get(index);
+        }
+        random.nextBytes(bytes);
+    }
+
+    /**
+     * A new SecureRandom, preferring DRBG.<br/>
+     * The platform default (NativePRNG on linux) locks on a single global instance, so extra instances
+     * of it would not reduce contention. DRBG instances only lock themselves.
+     */
+    static SecureRandom newSecureRandom() {
+        try {
+            return SecureRandom.getInstance("DRBG");
+        } catch (NoSuchAlgorithmException e) {
+            return new SecureRandom();
+        }
+    }
+
+    int stripes() {
+        return mask + 1;
+    }
+
+    // lazy, so nothing is seeded until the first Ksuid is generated
+    private static class Holder {
+        // more stripes than cores, so running threads rarely collide
+        static final StripedEntropySource SHARED = new StripedEntropySource(Runtime.getRuntime().availableProcessors() * 4);
+    }
+}
@@ -1,7 +1,13 @@
 package com.kncept.ksuid.utils;
 
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.Writer;
 import java.math.BigInteger;
+import java.util.Arrays;
 
 /**
  * This is intended to be a 'drop in' class to take and customise if required.<br/>
@@ -18,38 +24,233 @@ public class BaseCoder {
 
     public static final BaseCoder base16Encoder = new BaseCoder(alphabet_base16);
     public static final BaseCoder base62Encoder = new BaseCoder(alphabet_base62);
-    public static final BaseCoder base64Encoder = new ByteGroupingBaseCoder(3, 4, alphabet_base64, "");
-    public static final BaseCoder base64EncoderWithPadding = new ByteGroupingBaseCoder(3, 4, alphabet_base64, "=");
+    private static final ByteGroupingBaseCoder base64 = new ByteGroupingBaseCoder(3, 4, alphabet_base64, "");
+    private static final ByteGroupingBaseCoder base64WithPadding = new ByteGroupingBaseCoder(3, 4, alphabet_base64, "=");
+    public static final BaseCoder base64Encoder = base64;
+    public static final BaseCoder base64EncoderWithPadding = base64WithPadding;
+    // powers up to this size are kept between calls. Larger ones are recomputed per call,
+    // so one huge input doesn't leave its size in BigIntegers cached on a shared coder
+    private static final int MAX_CACHED_POWER_BITS = 1 << 16;
 
     private final String alphabet;
+    private final char[] alphabetChars;
+    // ASCII character -> digit value, or -1
+    private final byte[] digits = new byte[128];
+    // alphabets with characters outside the table fall back to a search
+    private final boolean ascii;
+    // log2 of the base for power of two alphabets (eg: 4 for base16), or 0
+    private final int bitsPerDigit;
+    // the most digits that always fit in a long, and base^leafDigits
+    private final int leafDigits;
+    // powers[i] = base^(leafDigits * 2^i), grown on demand up to MAX_CACHED_POWER_BITS
+    private volatile BigInteger[] powers;
 
     // use bigintegers and basic maths for a reliable enc/dec
     // be consistent with zeros and empty strings
     public BaseCoder(String alphabet) {
         this.alphabet = alphabet;
+        this.alphabetChars = alphabet.toCharArray();
+        this.bitsPerDigit = Integer.bitCount(alphabet.length()) == 1 ? Integer.numberOfTrailingZeros(alphabet.length()) : 0;
+        int base = alphabet.length();
+        long leafPower = 1;
+        int leafDigits = 0;
+        while (base > 1 && leafPower <= Long.MAX_VALUE / base) {
+            leafPower *= base;
+            leafDigits++;
+        }
+        this.leafDigits = leafDigits;
+        this.powers = new BigInteger[]{BigInteger.valueOf(leafPower)};
+        for(int i = 0; i < digits.length; i++) digits[i] = -1;
+        boolean ascii = true;
+        for(int i = 0; i < alphabet.length(); i++) {
+            char c = alphabet.charAt(i);
+            if (c < digits.length) digits[c] = (byte) i;
+            else ascii = false;
+        }
+        this.ascii = ascii;
+        // letters are case insensitive, unless the alphabet uses both cases (eg: base16 accepts 'a' for 'A')
+        for(int i = 0; i < alphabet.length(); i++) {
+            char c = alphabet.charAt(i);
+            char other = Character.isUpperCase(c) ? Character.toLowerCase(c) : Character.toUpperCase(c);
+            if (other != c && other < digits.length && digits[other] == -1) digits[other] = (byte) i;
+        }
+    }
+
+    /**
+     * Table lookup of a characters value in this alphabet (a search, for non ASCII characters)
+     * @param c character to look up
+     * @return the digit value, or -1 if the character is not part of the alphabet
+     */
+    public int digitValue(char c) {
+        if (c < digits.length) return digits[c];
+        return ascii ? -1 : alphabet.indexOf(c);
     }
 
     public byte[] decode (String input) {
         if (input == null || input.equals("")) return new byte[0];
-        byte[] values = new byte[input.length()];
-        for(int i = 0; i < values.length; i++)
-            values[i] = (byte)(alphabet.indexOf(input.charAt(i)) & 0xFF);
-        byte[] decoded = convertBase(values, alphabet.length(), 256);
-        if (decoded.length == 0) return new byte[]{0};
-        return decoded;
+        byte[] values = digitValues(input, input.length());
+        if (bitsPerDigit != 0) return decodeBits(values);
+        return decodeNumber(values);
+    }
+
+    // maps each character to its digit value
+    byte[] digitValues(String input, int length) {
+        byte[] values = new byte[length];
+        for(int i = 0; i < length; i++) {
+            int digit = digitValue(input.charAt(i));
+            if (digit < 0) throw new IllegalArgumentException("Invalid character '" + input.charAt(i) + "' at index " + i);
+            values[i] = (byte) digit;
+        }
+        return values;
     }
 
     public String encode (byte[] input) {
         if (input == null || input.length == 0) return "";
-        byte[] indicies = convertBase(input, 256, alphabet.length());
+        if (bitsPerDigit != 0) return encodeBits(input);
+        return encodeNumber(input);
+    }
 
-        StringBuilder accumulator = new StringBuilder();
-        for(int i = 0; i < indicies.length; i++)
-            accumulator.append(alphabet.charAt(indicies[i]));
+    /**
+     * @return {@link #base64Encoder}, typed to allow streaming
+     */
+    public static ByteGroupingBaseCoder base64() {
+        return base64;
+    }
 
-        String encoded = accumulator.toString();
-        if (encoded.isEmpty()) return "0";
-        return encoded;
+    /**
+     * @return {@link #base64EncoderWithPadding}, typed to allow streaming
+     */
+    public static ByteGroupingBaseCoder base64WithPadding() {
+        return base64WithPadding;
+    }
+
+    // divide and conquer radix conversion - split the number by base^(leafDigits * 2^n), so the big
+    // multiplications and divisions happen on balanced halves. Sub quadratic, as BigInteger switches to
+    // Karatsuba / Toom-Cook multiplication and Burnikel-Ziegler division for large values.
+    private String encodeNumber(byte[] input) {
+        BigInteger number = new BigInteger(1, input);
+        if (number.signum() == 0) return "0";
+        BigInteger[] powers = this.powers;
+        int level = 0;
+        while (true) {
+            if (level == powers.length) powers = powers(powers, level);
+            if (powers[level].compareTo(number) > 0) break;
+            level++;
+        }
+        char[] encoded = new char[leafDigits << level];
+        writeDigits(number, level, powers, encoded, 0);
+        int start = 0;
+        while (encoded[start] == alphabetChars[0]) start++;
+        return new String(encoded, start, encoded.length - start);
+    }
+
+    // writes exactly leafDigits * 2^level digits. number < powers[level]
+    private void writeDigits(BigInteger number, int level, BigInteger[] powers, char[] dest, int offset) {
+        if (level == 0) {
+            int base = alphabetChars.length;
+            long value = number.longValue();
+            for(int pos = offset + leafDigits - 1; pos >= offset; pos--) {
+                dest[pos] = alphabetChars[(int) (value % base)];
+                value /= base;
+            }
+            return;
+        }
+        BigInteger[] quotientAndRemainder = number.divideAndRemainder(powers[level - 1]);
+        writeDigits(quotientAndRemainder[0], level - 1, powers, dest, offset);
+        writeDigits(quotientAndRemainder[1], level - 1, powers, dest, offset + (leafDigits << (level - 1)));
+    }
+
+    private byte[] decodeNumber(byte[] values) {
+        int level = 0;
+        while ((leafDigits << level) < values.length) level++;
+        BigInteger number = readDigits(values, values.length - (leafDigits << level), level, powers(this.powers, level));
+        if (number.signum() == 0) return new byte[]{0};
+        byte[] decoded = number.toByteArray();
+        // drop the sign byte
+        return decoded[0] == 0 ? Arrays.copyOfRange(decoded, 1, decoded.length) : decoded;
+    }
+
+    // reads exactly leafDigits * 2^level digits from start. Negative indexes are leading zeros
+    private BigInteger readDigits(byte[] values, int start, int level, BigInteger[] powers) {
+        int width = leafDigits << level;
+        if (start + width <= 0) return BigInteger.ZERO;
+        if (level == 0) {
+            int base = alphabetChars.length;
+            long value = 0;
+            for(int i = Math.max(0, start); i < start + width; i++) value = value * base + values[i];
+            return BigInteger.valueOf(value);
+        }
+        BigInteger high = readDigits(values, start, level - 1, powers);
+        BigInteger low = readDigits(values, start + (width >> 1), level - 1, powers);
+        return high.signum() == 0 ? low : high.multiply(powers[level - 1]).add(low);
+    }
+
+    /**
+     * @param powers the powers computed so far
+     * @return powers up to at least level. The small ones are cached for later calls
+     */
+    private BigInteger[] powers(BigInteger[] powers, int level) {
+        if (level < powers.length) return powers;
+        int length = powers.length;
+        powers = Arrays.copyOf(powers, level + 1);
+        for(int i = length; i <= level; i++) powers[i] = powers[i - 1].multiply(powers[i - 1]);
+        int cached = this.powers.length;
+        int cacheable = cached;
+        while (cacheable <= level && powers[cacheable].bitLength() <= MAX_CACHED_POWER_BITS) cacheable++;
+        // racing threads compute the same values, so either copy is fine
+        if (cacheable > cached) this.powers = Arrays.copyOf(powers, cacheable);
+        return powers;
+    }
+
+    int cachedPowers() {
+        return powers.length;
+    }
+
+    // power of two bases: the same number as convertBase, by shifting bits instead of BigInteger division
+    private String encodeBits(byte[] input) {
+        int start = 0;
+        while (start < input.length && input[start] == 0) start++;
+        if (start == input.length) return "0";
+        int bits = (input.length - start) * 8 - (Integer.numberOfLeadingZeros(input[start] & 0xFF) - 24);
+        char[] encoded = new char[(bits + bitsPerDigit - 1) / bitsPerDigit];
+        int mask = (1 << bitsPerDigit) - 1;
+        int buffer = 0;
+        int buffered = 0;
+        int index = input.length;
+        // least significant digit first
+        for(int pos = encoded.length - 1; pos >= 0; pos--) {
+            if (buffered < bitsPerDigit && index > start) {
+                buffer |= (input[--index] & 0xFF) << buffered;
+                buffered += 8;
+            }
+            encoded[pos] = alphabetChars[buffer & mask];
+            buffer >>>= bitsPerDigit;
+            buffered -= bitsPerDigit;
+        }
+        return new String(encoded);
+    }
+
+    private byte[] decodeBits(byte[] values) {
+        int start = 0;
+        while (start < values.length && values[start] == 0) start++;
+        if (start == values.length) return new byte[]{0};
+        int bits = (values.length - start) * bitsPerDigit - (Integer.numberOfLeadingZeros(values[start]) - 32 + bitsPerDigit);
+        byte[] decoded = new byte[(bits + 7) / 8];
+        int buffer = 0;
+        int buffered = 0;
+        int pos = decoded.length;
+        // least significant byte first
+        for(int i = values.length - 1; i >= start; i--) {
+            buffer |= values[i] << buffered;
+            buffered += bitsPerDigit;
+            if (buffered >= 8) {
+                decoded[--pos] = (byte) buffer;
+                buffer >>>= 8;
+                buffered -= 8;
+            }
+        }
+        if (pos > 0) decoded[--pos] = (byte) buffer;
+        return decoded;
     }
 
     /**
@@ -67,7 +268,7 @@ public class BaseCoder {
         return counter;
     }
 
-    // not efficient. Use maths and fully read into memory
+    // not efficient. Use maths and fully read into memory. Quadratic - encode and decode use a divide and conquer conversion
     protected byte[] convertBase(byte[] fromNumber, int fromBase, int toBase) {
         if (fromBase == toBase) throw new IllegalArgumentException();
         if (fromBase < 0 || toBase < 0) throw new IllegalArgumentException();
@@ -147,84 +348,215 @@ public class BaseCoder {
         }
     }
 
-    // eg: base64
-    private static class ByteGroupingBaseCoder extends BaseCoder {
-        private final int encodeGroupSize;
+    /**
+     * eg: base64<br/>
+     * A bit stream, most significant bit first - each group of encodeGroupSize bytes is exactly decodeGroupSize characters.
+     * Unlike the numeric coders, this can encode and decode as a stream.
+     */
+    public static class ByteGroupingBaseCoder extends BaseCoder {
         private final int decodeGroupSize;
         private final String padding;
         public ByteGroupingBaseCoder(int encodeGroupSize, int decodeGroupSize, String alphabet, String padding) {
             super(alphabet);
-            this.encodeGroupSize = encodeGroupSize;
+            if (super.bitsPerDigit == 0 || encodeGroupSize * 8 != decodeGroupSize * super.bitsPerDigit)
+                throw new IllegalArgumentException(encodeGroupSize + " bytes do not encode to " + decodeGroupSize + " characters of base " + alphabet.length());
             this.decodeGroupSize = decodeGroupSize;
             this.padding = padding == null ? "" : padding;
         }
 
         @Override
         public String encode(byte[] input) {
-            if (input == null || input.length == 0) return super.encode(input);
-            byte[] group = new byte[encodeGroupSize];
-            StringBuilder accumulator = new StringBuilder();
-            // take input int chunks of encodeGroupSize
-            for(int i = 0; i < input.length; i+= encodeGroupSize) {
-                for(int j = 0; j < encodeGroupSize; j++) {
-                    // fill the grouping - zero value if we don't match size 100%
-                    group[j] = input.length <= i + j ? 0 : input[i + j];
+            if (input == null || input.length == 0) return "";
+            int bitsPerDigit = super.bitsPerDigit;
+            int length = (input.length * 8 + bitsPerDigit - 1) / bitsPerDigit;
+            int padded = padding.isEmpty() ? length : (length + decodeGroupSize - 1) / decodeGroupSize * decodeGroupSize;
+            StringBuilder accumulator = new StringBuilder(length + (padded - length) * padding.length());
+            char[] alphabet = super.alphabetChars;
+            int mask = (1 << bitsPerDigit) - 1;
+            int buffer = 0;
+            int buffered = 0;
+            for(byte b : input) {
+                buffer = buffer << 8 | (b & 0xFF);
+                buffered += 8;
+                while (buffered >= bitsPerDigit) {
+                    buffered -= bitsPerDigit;
+                    accumulator.append(alphabet[(buffer >>> buffered) & mask]);
                 }
-                String encoding = super.encode(group);
-
-                if (i + encodeGroupSize > input.length) { // if not an exact block encoding match
-                    for(int j = input.length % group.length; j < group.length; j++) {
-                        group[j] = 1; // just the least sigificant bit. so that it doesn't change any partially encoded values
-                    }
-                    String byteZeroPaddedEncoding = encoding;
-                    String byteOnePaddedEncoding = super.encode(group);
-
-                    // when the first character changes, we either pad or truncate (empty pad).
-                    int firstDifferentCharacter = 0;
-                    while(byteZeroPaddedEncoding.charAt(firstDifferentCharacter) == byteOnePaddedEncoding.charAt(firstDifferentCharacter))
-                        firstDifferentCharacter++;
-                    encoding = encoding.substring(0, firstDifferentCharacter);
-                    for(int j = 0; j < byteZeroPaddedEncoding.length() - firstDifferentCharacter; j++)
-                        encoding = encoding + padding;
-                }
-                accumulator.append(encoding);
             }
+            // a partial last digit is zero filled
+            if (buffered > 0) accumulator.append(alphabet[(buffer << (bitsPerDigit - buffered)) & mask]);
+            for(int i = length; i < padded; i++) accumulator.append(padding);
             return accumulator.toString();
         }
 
         @Override
         public byte[] decode(String input) {
-            if (input == null || input.isEmpty()) return super.decode(input);
-            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            if (input == null || input.isEmpty()) return new byte[0];
+            int length = input.length();
+            if (!padding.isEmpty()) {
+                while (length >= padding.length() && input.startsWith(padding, length - padding.length())) length -= padding.length();
+            }
+            byte[] values = digitValues(input, length);
+            int bitsPerDigit = super.bitsPerDigit;
+            // any trailing bits that don't make a whole byte were zero fill
+            byte[] decoded = new byte[length * bitsPerDigit / 8];
+            int buffer = 0;
+            int buffered = 0;
+            int pos = 0;
+            for(int i = 0; i < length && pos < decoded.length; i++) {
+                buffer = buffer << bitsPerDigit | values[i];
+                buffered += bitsPerDigit;
+                if (buffered >= 8) {
+                    buffered -= 8;
+                    decoded[pos++] = (byte) (buffer >>> buffered);
+                }
+            }
+            return decoded;
+        }
 
-            for (int i = 0; i < input.length(); i += decodeGroupSize) {
-                String group = input.substring(i, Math.min(i + decodeGroupSize, input.length()));
+        /**
+         * Wraps a Writer, so that bytes written to the stream are encoded as they arrive.<br/>
+         * Closing the stream writes any final partial group (and padding), and closes the writer.
+         * @param out destination for the encoded characters
+         * @return an OutputStream to write the raw bytes to
+         */
+        public OutputStream encodingStream(Writer out) {
+            return new EncodingStream(out);
+        }
 
-                if (group.length() != decodeGroupSize || (!padding.isEmpty() && group.endsWith(padding))) {
-                    // trim padding, so we only have to do this once.
-                    if (!padding.isEmpty() && group.endsWith(padding)) {
-                        while(group.endsWith(padding)) group = group.substring(0, group.length() - 1);
-                    }
+        /**
+         * Wraps a Reader, decoding characters as the bytes are read.
+         * @param in source of the encoded characters
+         * @return an InputStream of the decoded bytes
+         */
+        public InputStream decodingStream(Reader in) {
+            return new DecodingStream(in);
+        }
+
+        // the same bit stream as encode, holding at most one partial digit and a small character buffer
+        private class EncodingStream extends OutputStream {
+            private final Writer out;
+            private final char[] alphabet = ByteGroupingBaseCoder.super.alphabetChars;
+            private final int bitsPerDigit = ByteGroupingBaseCoder.super.bitsPerDigit;
+            private final int mask = (1 << bitsPerDigit) - 1;
+            private final char[] chars = new char[1024];
+            private int charCount;
+            private long digits;
+            private int buffer;
+            private int buffered;
+            private boolean closed;
+
+            private EncodingStream(Writer out) {
+                this.out = out;
+            }
+
+            @Override
+            public void write(int b) throws IOException {
+                if (closed) throw new IOException("Stream closed");
+                buffer = buffer << 8 | (b & 0xFF);
+                buffered += 8;
+                while (buffered >= bitsPerDigit) {
+                    buffered -= bitsPerDigit;
+                    put(alphabet[(buffer >>> buffered) & mask]);
+                    digits++;
+                }
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                for(int i = 0; i < len; i++) write(b[off + i]);
+            }
+
+            private void put(char c) throws IOException {
+                if (charCount == chars.length) drain();
+                chars[charCount++] = c;
+            }
 
-                    String zeroedGroup = group;
-                    while (zeroedGroup.length() < decodeGroupSize) zeroedGroup = zeroedGroup + super.alphabet.charAt(0);
-                    byte[] zeroedDecoding = super.decode(zeroedGroup);
-                    String mostSignificantBitGroup = group; // MSB, going the other way
-                    while (mostSignificantBitGroup.length() < decodeGroupSize) mostSignificantBitGroup = mostSignificantBitGroup + super.alphabet.charAt(super.alphabet.length() - 1);
-                    byte[] mostSignificantBitDecoding = super.decode(mostSignificantBitGroup);
-
-                    int indexAtWhichTheyDiffer = 0;
-                    while(zeroedDecoding[indexAtWhichTheyDiffer] == mostSignificantBitDecoding[indexAtWhichTheyDiffer])
-                        indexAtWhichTheyDiffer++;
-                    for(int j = 0; j < indexAtWhichTheyDiffer; j++)
-                        baos.write(zeroedDecoding[j]);
-                } else {
-                    byte[] decoded = super.decode(group);
-                    for(int j = 0; j < decoded.length; j++)
-                        baos.write(decoded[j]);
+            private void drain() throws IOException {
+                out.write(chars, 0, charCount);
+                charCount = 0;
+            }
+
+            @Override
+            public void flush() throws IOException {
+                drain();
+                out.flush();
+            }
+
+            @Override
+            public void close() throws IOException {
+                if (closed) return;
+                if (buffered > 0) {
+                    put(alphabet[(buffer << (bitsPerDigit - buffered)) & mask]);
+                    digits++;
+                }
+                for(long i = digits; i % decodeGroupSize != 0; i++) {
+                    for(int j = 0; j < padding.length(); j++) put(padding.charAt(j));
                 }
+                closed = true;
+                drain();
+                out.close();
+            }
+        }
+
+        // padding is skipped wherever it appears. Trailing bits that don't make a whole byte were zero fill
+        private class DecodingStream extends InputStream {
+            private final Reader in;
+            private final int bitsPerDigit = ByteGroupingBaseCoder.super.bitsPerDigit;
+            private final char[] chars = new char[1024];
+            private final byte[] single = new byte[1];
+            private int charPos;
+            private int charLimit;
+            private long index;
+            private int buffer;
+            private int buffered;
+            private boolean eof;
+
+            private DecodingStream(Reader in) {
+                this.in = in;
+            }
+
+            @Override
+            public int read() throws IOException {
+                return read(single, 0, 1) < 0 ? -1 : single[0] & 0xFF;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                int count = 0;
+                while (count < len) {
+                    if (buffered >= 8) {
+                        buffered -= 8;
+                        b[off + count++] = (byte) (buffer >>> buffered);
+                        continue;
+                    }
+                    if (charPos == charLimit) {
+                        // only block for more characters if nothing has been decoded yet
+                        if (eof || (count > 0 && !in.ready())) break;
+                        charLimit = in.read(chars, 0, chars.length);
+                        charPos = 0;
+                        if (charLimit < 0) {
+                            charLimit = 0;
+                            eof = true;
+                            break;
+                        }
+                        continue;
+                    }
+                    char c = chars[charPos++];
+                    index++;
+                    if (!padding.isEmpty() && padding.indexOf(c) >= 0) continue;
+                    int digit = digitValue(c);
+                    if (digit < 0) throw new IOException("Invalid character '" + c + "' at index " + (index - 1));
+                    buffer = buffer << bitsPerDigit | digit;
+                    buffered += bitsPerDigit;
+                }
+                return count == 0 && len > 0 ? -1 : count;
+            }
+
+            @Override
+            public void close() throws IOException {
+                in.close();
             }
-            return baos.toByteArray();
         }
     }
 }
@@ -69,4 +69,52 @@ public class ByteConverter {
         System.arraycopy(suffix, 0, result, prefix.length, suffix.length);
         return result;
     }
+
+    /** Reads a big endian int from 4 bytes of the array
+     *
+     * @param data source array
+     * @param offset index of the most significant byte
+     * @return int value
+     */
+    public static int readInt(byte[] data, int offset) {
+        return
+                data[offset] << 24 |
+                (data[offset + 1] & 0xFF) << 16 |
+                (data[offset + 2] & 0xFF) << 8 |
+                (data[offset + 3] & 0xFF);
+    }
+
+    /** Reads a big endian long from 8 bytes of the array
+     *
+     * @param data source array
+     * @param offset index of the most significant byte
+     * @return long value
+     */
+    public static long readLong(byte[] data, int offset) {
+        return (long) readInt(data, offset) << 32 | (readInt(data, offset + 4) & 0xFFFFFFFFL);
+    }
+
+    /** Writes an int into 4 bytes of the array, big endian
+     *
+     * @param data destination array
+     * @param offset index for the most significant byte
+     * @param value int to write
+     */
+    public static void writeInt(byte[] data, int offset, int value) {
+        data[offset] = (byte) (value >>> 24);
+        data[offset + 1] = (byte) (value >>> 16);
+        data[offset + 2] = (byte) (value >>> 8);
+        data[offset + 3] = (byte) value;
+    }
+
+    /** Writes a long into 8 bytes of the array, big endian
+     *
+     * @param data destination array
+     * @param offset index for the most significant byte
+     * @param value long to write
+     */
+    public static void writeLong(byte[] data, int offset, long value) {
+        writeInt(data, offset, (int) (value >>> 32));
+        writeInt(data, offset + 4, (int) value);
+    }
 }
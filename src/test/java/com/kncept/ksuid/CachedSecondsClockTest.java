@@ -0,0 +1,39 @@
+package com.kncept.ksuid;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CachedSecondsClockTest {
+
+    @Test
+    public void cachesTheUnderlyingClock() {
+        Instant instant = Instant.parse("2020-02-29T12:00:00.500Z");
+        try (CachedSecondsClock clock = new CachedSecondsClock(Clock.fixed(instant, ZoneOffset.UTC))) {
+            assertEquals(instant.getEpochSecond(), clock.getAsLong());
+            Ksuid ksuid = new KsuidGenerator(EntropySource.defaultSource(), clock).next();
+            assertEquals(instant.getEpochSecond(), ksuid.getTime().toEpochSecond());
+        }
+    }
+
+    @Test
+    public void tracksTheSystemClock() {
+        try (CachedSecondsClock clock = new CachedSecondsClock()) {
+            long now = System.currentTimeMillis() / 1000;
+            assertTrue(Math.abs(now - clock.getAsLong()) <= 1);
+        }
+    }
+
+    @Test
+    public void closeStopsTheTicker() throws Exception {
+        CachedSecondsClock clock = new CachedSecondsClock();
+        assertTrue(clock.isTicking());
+        clock.close();
+        for(int i = 0; i < 100 && clock.isTicking(); i++) Thread.sleep(10);
+        assertFalse(clock.isTicking());
+    }
+}
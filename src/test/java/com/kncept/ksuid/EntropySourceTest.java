@@ -0,0 +1,52 @@
+package com.kncept.ksuid;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EntropySourceTest {
+
+    @Test
+    public void wrapsARandom() {
+        byte[] expected = new byte[Ksuid.entropyLength];
+        new Random(42).nextBytes(expected);
+        byte[] actual = new byte[Ksuid.entropyLength];
+        EntropySource.of(new Random(42)).nextBytes(actual);
+        assertArrayEquals(expected, actual);
+        assertThrows(IllegalArgumentException.class, () -> EntropySource.of(null));
+    }
+
+    @Test
+    public void stripesAreAPowerOfTwo() {
+        assertEquals(1, new StripedEntropySource(1).stripes());
+        assertEquals(8, new StripedEntropySource(5).stripes());
+        assertEquals(8, new StripedEntropySource(8).stripes());
+        assertThrows(IllegalArgumentException.class, () -> new StripedEntropySource(0));
+    }
+
+    @Test
+    public void pooledSourcesProduceDifferentBytes() throws Exception {
+        assertProducesDifferentBytes(EntropySource.defaultSource());
+        assertProducesDifferentBytes(EntropySource.striped(3));
+        assertProducesDifferentBytes(EntropySource.threadLocal());
+    }
+
+    private void assertProducesDifferentBytes(EntropySource source) throws Exception {
+        byte[][] results = new byte[8][Ksuid.entropyLength];
+        Thread[] threads = new Thread[results.length];
+        for(int i = 0; i < threads.length; i++) {
+            byte[] result = results[i];
+            threads[i] = new Thread(() -> source.nextBytes(result));
+            threads[i].start();
+        }
+        for(Thread thread: threads) thread.join();
+        for(int i = 0; i < results.length; i++) {
+            for(int j = i + 1; j < results.length; j++) {
+                assertFalse(Arrays.equals(results[i], results[j]));
+            }
+        }
+    }
+}
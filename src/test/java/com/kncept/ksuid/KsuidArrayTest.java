@@ -0,0 +1,102 @@
+package com.kncept.ksuid;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class KsuidArrayTest {
+
+    @Test
+    public void sortsLikeKsuids() {
+        Random random = new Random(14);
+        KsuidArray array = new KsuidArray(0);
+        List<Ksuid> expected = new ArrayList<>();
+        byte[] raw = new byte[Ksuid.totalLength];
+        for(int i = 0; i < 5000; i++) {
+            random.nextBytes(raw);
+            raw[0] = (byte) (i % 3); // plenty of shared and duplicate prefixes
+            if (i % 7 == 0) raw[0] = (byte) 0xFF;
+            Ksuid ksuid = i % 11 == 0 && i > 0 ? expected.get(i - 1) : new Ksuid(raw);
+            expected.add(ksuid);
+            array.add(ksuid);
+        }
+        assertEquals(expected.size(), array.size());
+        array.sort();
+        expected.sort(null);
+        List<Ksuid> actual = new ArrayList<>();
+        array.forEach(actual::add);
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    public void findsTimeRanges() {
+        KsuidArray array = new KsuidArray();
+        for(int second = 100; second < 200; second += 10) {
+            for(int i = 0; i < 3; i++) array.add(new Ksuid(second, null));
+        }
+        array.sort();
+        assertEquals(0, array.lowerBound(time(0)));
+        assertEquals(0, array.lowerBound(time(100)));
+        assertEquals(3, array.lowerBound(time(101)));
+        assertEquals(3, array.lowerBound(time(110)));
+        assertEquals(27, array.lowerBound(time(190)));
+        assertEquals(30, array.lowerBound(time(191)));
+        assertEquals(0, array.lowerBound(ZonedDateTime.parse("2000-01-01T00:00:00Z")));
+        assertEquals(30, array.lowerBound(ZonedDateTime.parse("2200-01-01T00:00:00Z")));
+
+        // created in [120, 150) = seconds 120, 130 and 140
+        int from = array.lowerBound(time(120));
+        int to = array.lowerBound(time(150));
+        assertEquals(9, to - from);
+        for(int i = from; i < to; i++) {
+            assertTrue(array.getRawKsuidEpoch(i) >= 120 && array.getRawKsuidEpoch(i) < 150);
+        }
+    }
+
+    @Test
+    public void cursorReadsWithoutKsuids() {
+        KsuidArray array = new KsuidArray();
+        Ksuid[] ksuids = Ksuid.generate(10);
+        Arrays.sort(ksuids);
+        for(Ksuid ksuid: ksuids) array.add(ksuid);
+
+        KsuidArray.Cursor cursor = array.cursor();
+        StringBuilder sb = new StringBuilder();
+        char[] chars = new char[Ksuid.base62Length];
+        ByteBuffer buffer = ByteBuffer.allocate(Ksuid.totalLength);
+        int count = 0;
+        while (cursor.next()) {
+            Ksuid expected = ksuids[cursor.index()];
+            assertEquals(expected, cursor.toKsuid());
+            assertEquals(0, cursor.compareTo(expected));
+            assertEquals(expected.getRawKsuidEpoch(), cursor.getRawKsuidEpoch());
+            assertEquals(expected.getTime(), cursor.getTime());
+            cursor.toBase62(chars, 0);
+            assertEquals(expected.toBase62(), new String(chars));
+            sb.setLength(0);
+            assertEquals(expected.toBase62(), cursor.appendBase62(sb).toString());
+            buffer.clear();
+            cursor.writeTo(buffer);
+            assertEquals(expected, Ksuid.readFrom(buffer.flip()));
+            count++;
+        }
+        assertEquals(10, count);
+        assertFalse(cursor.next());
+        assertThrows(IndexOutOfBoundsException.class, cursor::toKsuid);
+        assertEquals(ksuids[3], cursor.moveTo(3).toKsuid());
+        assertThrows(IndexOutOfBoundsException.class, () -> array.get(10));
+    }
+
+    private static ZonedDateTime time(int rawKsuidEpoch) {
+        return ZonedDateTime.ofInstant(Instant.ofEpochSecond(rawKsuidEpoch + (long) Ksuid.EPOCH_SECONDS), ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,65 @@
+package com.kncept.ksuid;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class KsuidCacheTest {
+
+    @Test
+    public void repeatedParsesHitTheCache() {
+        KsuidCache cache = new KsuidCache(16);
+        Ksuid first = cache.parse("0ujtsYcgvSTl8PAuAdqWYSMnLOv");
+        assertEquals(new Ksuid("0ujtsYcgvSTl8PAuAdqWYSMnLOv"), first);
+        assertSame(first, cache.parse(new String("0ujtsYcgvSTl8PAuAdqWYSMnLOv")));
+        assertEquals(1, cache.hits());
+        assertEquals(1, cache.misses());
+
+        cache.clear();
+        assertEquals(0, cache.hits());
+        assertNotSame(first, cache.parse("0ujtsYcgvSTl8PAuAdqWYSMnLOv"));
+    }
+
+    @Test
+    public void isBounded() {
+        KsuidCache cache = new KsuidCache(5);
+        assertEquals(8, cache.capacity());
+        Ksuid[] ksuids = Ksuid.generate(1000);
+        for(Ksuid ksuid: ksuids) cache.parse(ksuid.toBase62());
+        int cached = 0;
+        for(Ksuid ksuid: ksuids) {
+            long hits = cache.hits();
+            assertEquals(ksuid, cache.parse(ksuid.toBase62()));
+            if (cache.hits() > hits) cached++;
+        }
+        assertTrue(cached <= cache.capacity());
+    }
+
+    @Test
+    public void keepsRecentEntriesInEachBucket() {
+        KsuidCache cache = new KsuidCache(2); // a single bucket
+        String a = "0ujtsYcgvSTl8PAuAdqWYSMnLOv";
+        String b = "0ujzPyRiIAffKhBux4PvQdDqMHY";
+        String c = "0uk1Hbc9dQ9pxyTqJ93IUrfhdGq";
+        cache.parse(a);
+        cache.parse(b);
+        cache.parse(a); // promoted
+        cache.parse(c); // evicts b
+        long misses = cache.misses();
+        cache.parse(a);
+        cache.parse(c);
+        assertEquals(misses, cache.misses());
+        cache.parse(b);
+        assertEquals(misses + 1, cache.misses());
+    }
+
+    @Test
+    public void otherInputIsParsedDirectly() {
+        KsuidCache cache = new KsuidCache(16);
+        assertEquals(new Ksuid("0ujtsYcgvSTl8PAuAdqWYSMnLOv"), cache.parse("0669F7EFB5A1CD34B5F99D1154FB6853345C9735"));
+        assertThrows(IllegalArgumentException.class, () -> cache.parse("0ujtsYcgvSTl8PAuAdqWYSMnLO-"));
+        assertThrows(IllegalArgumentException.class, () -> cache.parse(null));
+        assertEquals(0, cache.hits());
+        assertSame(Ksuid.parseCached("0ujtsYcgvSTl8PAuAdqWYSMnLOv"), Ksuid.parseCached("0ujtsYcgvSTl8PAuAdqWYSMnLOv"));
+    }
+}
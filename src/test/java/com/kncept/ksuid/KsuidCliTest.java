@@ -0,0 +1,164 @@
+package com.kncept.ksuid;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+public class KsuidCliTest {
+
+    private final ByteArrayOutputStream stdout = new ByteArrayOutputStream();
+    private final ByteArrayOutputStream stderr = new ByteArrayOutputStream();
+
+    private int run(String... args) {
+        return KsuidCli.run(args, new PrintStream(stdout, true), new PrintStream(stderr, true));
+    }
+
+    @Test
+    public void printsOneKsuidWithNoArguments() {
+        assertEquals(0, run());
+        String line = stdout.toString().trim();
+        assertEquals(Ksuid.base62Length, line.length());
+        assertNotNull(Ksuid.tryParse(line));
+    }
+
+    @Test
+    public void generatesInParallel() throws IOException {
+        Path file = Files.createTempFile("ksuids", ".txt");
+        try {
+            assertEquals(0, run("generate", "5000", "--threads", "3", "--chunk-size", "1000", "--out", file.toString()));
+            List<String> lines = Files.readAllLines(file);
+            assertEquals(5000, lines.size());
+            assertEquals(5000, new HashSet<>(lines).size());
+            lines.forEach(line -> assertNotNull(Ksuid.tryParse(line)));
+
+            assertEquals(0, run("generate", "100", "--format", "raw", "--out", file.toString()));
+            assertEquals(100 * Ksuid.totalLength, Files.size(file));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void convertsKeepingOrder() throws IOException {
+        Path text = Files.createTempFile("ksuids", ".txt");
+        Path raw = Files.createTempFile("ksuids", ".bin");
+        Path hex = Files.createTempFile("ksuids", ".hex");
+        try {
+            List<String> expected = new ArrayList<>();
+            StringBuilder input = new StringBuilder();
+            for(Ksuid ksuid : Ksuid.generate(3000)) {
+                expected.add(ksuid.toBase62());
+                // mixed line endings and formats
+                input.append(expected.size() % 2 == 0 ? ksuid.toBase16().toLowerCase() : ksuid.toBase62());
+                input.append(expected.size() % 3 == 0 ? "\r\n" : "\n");
+            }
+            Files.write(text, input.toString().getBytes(StandardCharsets.US_ASCII));
+            String[] small = {"--threads", "4", "--chunk-size", "500"};
+
+            assertEquals(0, run(concat(new String[]{"convert", text.toString(), "--format", "raw", "--out", raw.toString()}, small)));
+            assertEquals(3000 * Ksuid.totalLength, Files.size(raw));
+            assertEquals(0, run(concat(new String[]{"convert", raw.toString(), "--from", "raw", "--format", "base16", "--out", hex.toString()}, small)));
+            assertEquals(0, run(concat(new String[]{"convert", hex.toString()}, small)));
+            assertEquals(expected, Arrays.asList(stdout.toString().split("\n")));
+        } finally {
+            Files.delete(text);
+            Files.delete(raw);
+            Files.delete(hex);
+        }
+    }
+
+    @Test
+    public void inspects() throws IOException {
+        Path text = Files.createTempFile("ksuids", ".txt");
+        try {
+            Files.write(text, "0ujtsYcgvSTl8PAuAdqWYSMnLOv\n\n0ujzPyRiIAffKhBux4PvQdDqMHY".getBytes(StandardCharsets.US_ASCII));
+            assertEquals(0, run("inspect", text.toString()));
+            String[] lines = stdout.toString().split("\n");
+            assertEquals(2, lines.length);
+            assertEquals("0ujtsYcgvSTl8PAuAdqWYSMnLOv 2017-10-10T04:00:47Z B5A1CD34B5F99D1154FB6853345C9735", lines[0]);
+        } finally {
+            Files.delete(text);
+        }
+    }
+
+    @Test
+    public void streamsInputThatCantBeMapped() throws Exception {
+        Path dir = Files.createTempDirectory("ksuids");
+        Path fifo = dir.resolve("fifo");
+        try {
+            boolean created;
+            try {
+                created = new ProcessBuilder("mkfifo", fifo.toString()).start().waitFor() == 0;
+            } catch (IOException e) {
+                created = false;
+            }
+            assumeTrue(created, "mkfifo is not available");
+            List<String> expected = new ArrayList<>();
+            StringBuilder input = new StringBuilder();
+            for(Ksuid ksuid : Ksuid.generate(2000)) {
+                expected.add(ksuid.toBase16());
+                input.append(ksuid.toBase62()).append('\n');
+            }
+            // a pipe reports a size of 0, so this used to print nothing
+            Thread writer = new Thread(() -> {
+                try {
+                    Files.write(fifo, input.toString().getBytes(StandardCharsets.US_ASCII));
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            });
+            writer.start();
+            // small chunks, so lines are split across reads
+            assertEquals(0, run("convert", fifo.toString(), "--format", "base16", "--chunk-size", "100", "--threads", "3"));
+            writer.join();
+            assertEquals(expected, Arrays.asList(stdout.toString().split("\n")));
+        } finally {
+            Files.deleteIfExists(fifo);
+            Files.delete(dir);
+        }
+    }
+
+    @Test
+    public void reportsErrors() throws IOException {
+        assertEquals(2, run("bogus", "1"));
+        assertEquals(2, run("generate", "-1"));
+        assertEquals(2, run("generate", "1", "--format", "base99"));
+        // values that would wrap when narrowed to an int
+        assertEquals(2, run("generate", "1", "--chunk-size", "6000000000"));
+        assertEquals(2, run("generate", "1", "--threads", "4294967297"));
+        assertEquals(2, run("generate", "1", "--threads", "0"));
+        assertTrue(stderr.toString().contains("--chunk-size"));
+        Path text = Files.createTempFile("ksuids", ".txt");
+        try {
+            Files.write(text, "0ujtsYcgvSTl8PAuAdqWYSMnLOv\nnot-a-ksuid\n".getBytes(StandardCharsets.US_ASCII));
+            stderr.reset();
+            assertEquals(KsuidCli.EXIT_INVALID_INPUT, run("convert", text.toString()));
+            assertTrue(stderr.toString().contains("Invalid Ksuid at byte offset 28"));
+            assertFalse(stderr.toString().contains("usage"));
+            stderr.reset();
+            Files.write(text, new byte[Ksuid.totalLength + 1]);
+            assertEquals(KsuidCli.EXIT_INVALID_INPUT, run("convert", text.toString(), "--from", "raw"));
+            assertTrue(stderr.toString().contains("Raw input is not a multiple of 20 bytes"));
+        } finally {
+            Files.delete(text);
+        }
+    }
+
+    private static String[] concat(String[] a, String[] b) {
+        String[] result = Arrays.copyOf(a, a.length + b.length);
+        System.arraycopy(b, 0, result, a.length, b.length);
+        return result;
+    }
+}
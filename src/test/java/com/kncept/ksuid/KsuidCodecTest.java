@@ -0,0 +1,76 @@
+package com.kncept.ksuid;
+
+import com.kncept.ksuid.utils.BaseCoder;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class KsuidCodecTest {
+
+    @Test
+    public void base62MatchesBaseCoder() {
+        Random random = new Random(62);
+        byte[] data = new byte[Ksuid.totalLength];
+        for(int i = 0; i < 10000; i++) {
+            random.nextBytes(data);
+            // exercise the leading zero padding as well
+            for(int j = 0; j < i % Ksuid.totalLength; j++) data[j] = 0;
+            Ksuid ksuid = new Ksuid(data);
+            String encoded = KsuidCodec.encodeBase62(ksuid.getRawKsuidEpoch(), ksuid.entropyHigh(), ksuid.entropyLow());
+            assertEquals(padded(BaseCoder.base62Encoder.encode(data), Ksuid.base62Length), encoded);
+            assertEquals(ksuid, decodeBase62(encoded));
+        }
+    }
+
+    @Test
+    public void base16MatchesBaseCoder() {
+        Random random = new Random(16);
+        byte[] data = new byte[Ksuid.totalLength];
+        for(int i = 0; i < 1000; i++) {
+            random.nextBytes(data);
+            for(int j = 0; j < i % Ksuid.totalLength; j++) data[j] = 0;
+            Ksuid ksuid = new Ksuid(data);
+            String encoded = KsuidCodec.encodeBase16(ksuid.getRawKsuidEpoch(), ksuid.entropyHigh(), ksuid.entropyLow());
+            assertEquals(padded(BaseCoder.base16Encoder.encode(data), Ksuid.base16Length), encoded);
+            assertEquals(ksuid, KsuidCodec.decodeBase16(KsuidCodec.Source.CHAR_SEQUENCE, encoded, 0));
+        }
+    }
+
+    @Test
+    public void base62Limits() {
+        assertEquals("000000000000000000000000000", KsuidCodec.encodeBase62(0, 0L, 0L));
+        assertEquals("aWgEPTl1tmebfsQzFP4bxwgy80V", KsuidCodec.encodeBase62(-1, -1L, -1L));
+        assertEquals(new Ksuid(-1, -1L, -1L), decodeBase62("aWgEPTl1tmebfsQzFP4bxwgy80V"));
+    }
+
+    @Test
+    public void base62RejectsInvalidInput() {
+        // one past the maximum
+        assertNull(decodeBase62("aWgEPTl1tmebfsQzFP4bxwgy80W"));
+        assertNull(decodeBase62("zzzzzzzzzzzzzzzzzzzzzzzzzzz"));
+        assertNull(decodeBase62("0ujtsYcgvSTl8PAuAdqWYSMnLO-"));
+        assertNull(decodeBase62("0ujtsYcgvSTl8PAuAdqWYSMnLO\u00e9"));
+        assertThrows(IllegalArgumentException.class,
+                () -> KsuidCodec.decode(KsuidCodec.Source.CHAR_SEQUENCE, "0ujtsYcgvSTl8PAuAdqWYSMnLO-", 0, Ksuid.base62Length));
+    }
+
+    @Test
+    public void base16IsCaseInsensitive() {
+        Ksuid expected = new Ksuid("0ujtsYcgvSTl8PAuAdqWYSMnLOv");
+        assertEquals(expected, KsuidCodec.decodeBase16(KsuidCodec.Source.CHAR_SEQUENCE, "0669f7efb5a1cd34b5f99d1154fb6853345c9735", 0));
+        assertEquals(expected, KsuidCodec.decodeBase16(KsuidCodec.Source.CHAR_SEQUENCE, "0669F7efb5a1cd34b5f99d1154fb6853345c9735", 0));
+        assertNull(KsuidCodec.decodeBase16(KsuidCodec.Source.CHAR_SEQUENCE, "0669G7efb5a1cd34b5f99d1154fb6853345c9735", 0));
+    }
+
+    private static Ksuid decodeBase62(String value) {
+        return KsuidCodec.decodeBase62(KsuidCodec.Source.CHAR_SEQUENCE, value, 0);
+    }
+
+    private static String padded(String value, int length) {
+        StringBuilder sb = new StringBuilder();
+        for(int i = value.length(); i < length; i++) sb.append('0');
+        return sb.append(value).toString();
+    }
+}
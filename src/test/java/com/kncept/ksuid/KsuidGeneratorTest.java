@@ -0,0 +1,98 @@
+package com.kncept.ksuid;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class KsuidGeneratorTest {
+
+    @Test
+    public void usesTheSuppliedEntropy() {
+        KsuidGenerator generator = new KsuidGenerator(bytes -> Arrays.fill(bytes, (byte) 0x5A));
+        Ksuid ksuid = generator.next();
+        byte[] expected = new byte[Ksuid.entropyLength];
+        Arrays.fill(expected, (byte) 0x5A);
+        assertArrayEquals(expected, ksuid.getEntropy());
+        assertThrows(IllegalArgumentException.class, () -> new KsuidGenerator(null));
+    }
+
+    @Test
+    public void concurrentGenerationIsUnique() throws Exception {
+        KsuidGenerator generator = new KsuidGenerator();
+        Set<Ksuid> all = ConcurrentHashMap.newKeySet();
+        Thread[] threads = new Thread[8];
+        for(int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(() -> {
+                Set<Ksuid> local = new HashSet<>();
+                for(int j = 0; j < 10000; j++) local.add(generator.next());
+                all.addAll(local);
+            });
+            threads[i].start();
+        }
+        for(Thread thread: threads) thread.join();
+        assertEquals(threads.length * 10000, all.size());
+    }
+
+    @Test
+    public void generatesInBatches() {
+        AtomicInteger calls = new AtomicInteger();
+        Random random = new Random(7);
+        KsuidGenerator generator = new KsuidGenerator(bytes -> {
+            calls.incrementAndGet();
+            random.nextBytes(bytes);
+        });
+        int count = KsuidGenerator.BATCH_SIZE * 2 + 10;
+        Ksuid[] ksuids = generator.generate(count);
+        assertEquals(3, calls.get());
+        assertEquals(count, new HashSet<>(Arrays.asList(ksuids)).size());
+        assertEquals(0, generator.generate(0).length);
+
+        // entropy is taken in order
+        Random replay = new Random(7);
+        byte[] first = new byte[KsuidGenerator.BATCH_SIZE * Ksuid.entropyLength];
+        replay.nextBytes(first);
+        assertArrayEquals(Arrays.copyOfRange(first, Ksuid.entropyLength, Ksuid.entropyLength * 2), ksuids[1].getEntropy());
+    }
+
+    @Test
+    public void fillsPartOfAnArray() {
+        Ksuid[] ksuids = new Ksuid[10];
+        new KsuidGenerator().fill(ksuids, 2, 5);
+        assertNull(ksuids[1]);
+        assertNotNull(ksuids[2]);
+        assertNotNull(ksuids[4]);
+        assertNull(ksuids[5]);
+        assertEquals(3000, Ksuid.generate(3000).length);
+    }
+
+    @Test
+    public void streamsDistinctKsuids() {
+        assertEquals(5000, new KsuidGenerator().stream().limit(5000).distinct().count());
+    }
+
+    @Test
+    public void usesTheSuppliedClock() {
+        Instant instant = Instant.parse("2023-01-02T03:04:05.999Z");
+        KsuidGenerator generator = new KsuidGenerator(EntropySource.of(new Random(1)), Clock.fixed(instant, ZoneOffset.UTC));
+        Ksuid ksuid = generator.next();
+        assertEquals(instant.getEpochSecond() - Ksuid.EPOCH_SECONDS, ksuid.getRawKsuidEpoch());
+        assertEquals(instant.getEpochSecond(), ksuid.getTime().toEpochSecond());
+        for(Ksuid each: generator.generate(10)) assertEquals(ksuid.getRawKsuidEpoch(), each.getRawKsuidEpoch());
+
+        // deterministic, given deterministic entropy
+        KsuidGenerator replay = new KsuidGenerator(EntropySource.of(new Random(1)), () -> instant.getEpochSecond());
+        assertEquals(ksuid, replay.next());
+
+        assertThrows(IllegalArgumentException.class, () -> new KsuidGenerator(EntropySource.defaultSource(), (Clock) null));
+    }
+}
@@ -0,0 +1,61 @@
+package com.kncept.ksuid;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class KsuidMapTest {
+
+    @Test
+    public void behavesLikeHashMap() {
+        Random random = new Random(15);
+        KsuidMap<Integer> map = new KsuidMap<>(0);
+        Map<Ksuid, Integer> expected = new HashMap<>();
+        List<Ksuid> pool = new ArrayList<>();
+        byte[] raw = new byte[Ksuid.totalLength];
+        for(int i = 0; i < 2000; i++) {
+            random.nextBytes(raw);
+            pool.add(new Ksuid(raw));
+        }
+        for(int i = 0; i < 50000; i++) {
+            Ksuid ksuid = pool.get(random.nextInt(pool.size()));
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(ksuid), map.remove(ksuid));
+            } else {
+                assertEquals(expected.put(ksuid, i), map.put(ksuid, i));
+            }
+            assertEquals(expected.size(), map.size());
+        }
+        for(Ksuid ksuid : pool) {
+            assertEquals(expected.get(ksuid), map.get(ksuid));
+            assertEquals(expected.containsKey(ksuid), map.containsKey(ksuid));
+        }
+        Map<Ksuid, Integer> visited = new HashMap<>();
+        map.forEach(visited::put);
+        assertEquals(expected, visited);
+    }
+
+    @Test
+    public void removeBeforeKeepsValues() {
+        KsuidMap<String> map = new KsuidMap<>();
+        for(int second = 0; second < 10; second++) {
+            map.put(new Ksuid(second, new byte[Ksuid.entropyLength]), "v" + second);
+        }
+        ZonedDateTime cutoff = ZonedDateTime.ofInstant(Instant.ofEpochSecond(Ksuid.EPOCH_SECONDS + 5), ZoneOffset.UTC);
+        assertEquals(5, map.removeBefore(cutoff));
+        assertEquals(5, map.size());
+        assertNull(map.get(new Ksuid(4, new byte[Ksuid.entropyLength])));
+        assertEquals("v7", map.get(new Ksuid(7, new byte[Ksuid.entropyLength])));
+        map.clear();
+        assertNull(map.get(new Ksuid(7, new byte[Ksuid.entropyLength])));
+    }
+}
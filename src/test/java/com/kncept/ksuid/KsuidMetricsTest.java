@@ -0,0 +1,104 @@
+package com.kncept.ksuid;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+public class KsuidMetricsTest {
+
+    @Test
+    public void countsGenerationParsingAndEntropy() {
+        assumeTrue(KsuidMetrics.isEnabled());
+        long generated = KsuidMetrics.generated();
+        long parses = KsuidMetrics.parses();
+        long failures = KsuidMetrics.parseFailures();
+        long refills = KsuidMetrics.entropyRefills();
+
+        new Ksuid();
+        new KsuidGenerator().next();
+        new KsuidGenerator().generate(10);
+        new MonotonicKsuidGenerator().generate(5);
+        Ksuid.parse("0ujtsYcgvSTl8PAuAdqWYSMnLOv");
+        Ksuid.tryParse("not a ksuid");
+
+        // other tests may run concurrently, so only check lower bounds
+        assertTrue(KsuidMetrics.generated() - generated >= 17);
+        assertTrue(KsuidMetrics.parses() - parses >= 2);
+        assertTrue(KsuidMetrics.parseFailures() - failures >= 1);
+        assertTrue(KsuidMetrics.entropyRefills() - refills >= 4);
+        assertTrue(KsuidMetrics.entropyNanos() > 0);
+    }
+
+    @Test
+    public void countsPrefetchRefills() throws InterruptedException {
+        assumeTrue(KsuidMetrics.isEnabled());
+        long refills = KsuidMetrics.entropyRefills();
+        try (PrefetchingEntropySource source = new PrefetchingEntropySource(EntropySource.of(new Random(21)), EntropySource.defaultSource(), 64, 4)) {
+            for(int i = 0; i < 100 && source.readyBlocks() < 4; i++) Thread.sleep(10);
+            assertEquals(4, source.readyBlocks());
+        }
+        assertTrue(KsuidMetrics.entropyRefills() - refills >= 4);
+    }
+
+    @Test
+    public void emitsFlightRecorderEvents() throws IOException {
+        assumeTrue(KsuidMetrics.isEnabled());
+        Path file = Files.createTempFile("ksuid", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("com.kncept.ksuid.ParseFailure");
+            recording.enable("com.kncept.ksuid.EntropyRefill").withThreshold(Duration.ZERO);
+            recording.enable("com.kncept.ksuid.Generation").withThreshold(Duration.ZERO);
+            recording.start();
+            Ksuid.tryParse("0ujtsYcgvSTl8PAuAdqWYSMnLO!");
+            new KsuidGenerator().next();
+            recording.stop();
+            recording.dump(file);
+
+            List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+            List<String> names = events.stream().map(event -> event.getEventType().getName()).collect(Collectors.toList());
+            assertTrue(names.contains("com.kncept.ksuid.ParseFailure"));
+            assertTrue(names.contains("com.kncept.ksuid.EntropyRefill"));
+            assertTrue(names.contains("com.kncept.ksuid.Generation"));
+            RecordedEvent failure = events.stream().filter(event -> event.getEventType().getName().equals("com.kncept.ksuid.ParseFailure")).findFirst().get();
+            assertEquals("0ujtsYcgvSTl8PAuAdqWYSMnLO!", failure.getString("input"));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void recordsGenerationEventsForNewKsuid() throws IOException {
+        assumeTrue(KsuidMetrics.isEnabled());
+        Path file = Files.createTempFile("ksuid", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("com.kncept.ksuid.Generation").withThreshold(Duration.ZERO);
+            recording.start();
+            new Ksuid();
+            new Ksuid((String) null);
+            recording.stop();
+            recording.dump(file);
+
+            String thread = Thread.currentThread().getName();
+            List<RecordedEvent> events = RecordingFile.readAllEvents(file).stream()
+                    .filter(event -> event.getEventType().getName().equals("com.kncept.ksuid.Generation"))
+                    .filter(event -> thread.equals(event.getThread().getJavaName()))
+                    .collect(Collectors.toList());
+            assertEquals(2, events.size());
+            for(RecordedEvent event : events) assertEquals(1, event.getInt("count"));
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.kncept.ksuid;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class KsuidParserTest {
+
+    @Test
+    public void parsesInParallelKeepingOrder() {
+        Ksuid[] expected = Ksuid.generate(KsuidParser.CHUNK_SIZE * 3 + 17);
+        String[] values = new String[expected.length];
+        List<Integer> invalid = new ArrayList<>();
+        for(int i = 0; i < values.length; i++) {
+            values[i] = i % 2 == 0 ? expected[i].toBase62() : expected[i].toBase16();
+            if (i % 1000 == 7) {
+                values[i] = i % 3 == 0 ? null : "not a ksuid";
+                expected[i] = null;
+                invalid.add(i);
+            }
+        }
+        KsuidParser.Result result = KsuidParser.parse(values);
+        assertArrayEquals(expected, result.ksuids());
+        assertArrayEquals(invalid.stream().mapToInt(Integer::intValue).toArray(), result.invalidIndexes());
+        assertFalse(result.allValid());
+        assertEquals(values.length - invalid.size(), result.validCount());
+
+        KsuidArray packed = result.toKsuidArray();
+        assertEquals(result.validCount(), packed.size());
+        assertEquals(expected[0], packed.get(0));
+    }
+
+    @Test
+    public void usesTheSuppliedExecutor() {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            List<String> values = new ArrayList<>();
+            for(Ksuid ksuid : Ksuid.generate(KsuidParser.CHUNK_SIZE * 2)) values.add(ksuid.toBase62());
+            KsuidParser.Result result = KsuidParser.parse(values, executor);
+            assertTrue(result.allValid());
+            assertEquals(values.get(values.size() - 1), result.ksuids()[values.size() - 1].toBase62());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void smallAndEmptyBatches() {
+        assertEquals(0, KsuidParser.parse(new String[0]).ksuids().length);
+        KsuidParser.Result result = KsuidParser.parse(Arrays.asList("0ujtsYcgvSTl8PAuAdqWYSMnLOv", ""));
+        assertEquals(new Ksuid("0ujtsYcgvSTl8PAuAdqWYSMnLOv"), result.ksuids()[0]);
+        assertArrayEquals(new int[]{1}, result.invalidIndexes());
+    }
+}
@@ -0,0 +1,81 @@
+package com.kncept.ksuid;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class KsuidPoolTest {
+
+    private static void awaitSize(KsuidPool pool, int size) throws InterruptedException {
+        for(int i = 0; i < 500 && pool.size() < size; i++) Thread.sleep(10);
+        assertEquals(size, pool.size());
+    }
+
+    @Test
+    public void takesPreEncodedKsuids() throws Exception {
+        try (KsuidPool pool = new KsuidPool(new KsuidGenerator(), 100, Duration.ofMinutes(1))) {
+            awaitSize(pool, 100);
+            Set<Ksuid> taken = new HashSet<>();
+            for(int i = 0; i < 1000; i++) {
+                Ksuid ksuid = pool.take();
+                assertTrue(taken.add(ksuid));
+                assertSame(ksuid.toBase62(), ksuid.toBase62());
+            }
+            awaitSize(pool, 100);
+        }
+    }
+
+    @Test
+    public void sizeStaysInRangeUnderConcurrentTakes() throws Exception {
+        try (KsuidPool pool = new KsuidPool(new KsuidGenerator(), 64, Duration.ofMinutes(1))) {
+            AtomicLong outOfRange = new AtomicLong();
+            Thread[] takers = new Thread[4];
+            for(int t = 0; t < takers.length; t++) {
+                takers[t] = new Thread(() -> {
+                    for(int i = 0; i < 20_000; i++) {
+                        pool.take();
+                        int size = pool.size();
+                        if (size < 0 || size > pool.capacity()) outOfRange.incrementAndGet();
+                    }
+                });
+                takers[t].start();
+            }
+            for(Thread taker : takers) taker.join();
+            assertEquals(0, outOfRange.get());
+            awaitSize(pool, 64);
+        }
+    }
+
+    @Test
+    public void discardsStaleKsuids() throws Exception {
+        AtomicLong now = new AtomicLong(Ksuid.EPOCH_SECONDS + 1000L);
+        KsuidGenerator generator = new KsuidGenerator(EntropySource.defaultSource(), now::get);
+        try (KsuidPool pool = new KsuidPool(generator, 10, Duration.ofSeconds(5))) {
+            awaitSize(pool, 10);
+            now.addAndGet(5);
+            Thread.sleep(300);
+            assertEquals(0, pool.discarded());
+            now.addAndGet(1);
+            for(int i = 0; i < 500 && pool.discarded() < 10; i++) Thread.sleep(10);
+            assertEquals(10, pool.discarded());
+            awaitSize(pool, 10);
+            assertEquals(1006, pool.take().getRawKsuidEpoch());
+        }
+    }
+
+    @Test
+    public void generatesDirectlyWhenEmpty() {
+        KsuidPool pool = new KsuidPool(new KsuidGenerator(), 1, Duration.ofMinutes(1));
+        pool.close();
+        while (pool.isReplenishing()) Thread.onSpinWait();
+        while (pool.size() > 0) pool.take();
+        long misses = pool.misses();
+        assertNotNull(pool.take());
+        assertEquals(misses + 1, pool.misses());
+    }
+}
@@ -0,0 +1,93 @@
+package com.kncept.ksuid;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class KsuidSetTest {
+
+    @Test
+    public void behavesLikeHashSet() {
+        Random random = new Random(15);
+        KsuidSet set = new KsuidSet(0);
+        Set<Ksuid> expected = new HashSet<>();
+        List<Ksuid> pool = new ArrayList<>();
+        byte[] raw = new byte[Ksuid.totalLength];
+        for(int i = 0; i < 2000; i++) {
+            random.nextBytes(raw);
+            pool.add(new Ksuid(raw));
+        }
+        for(int i = 0; i < 50000; i++) {
+            Ksuid ksuid = pool.get(random.nextInt(pool.size()));
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(ksuid), set.remove(ksuid));
+            } else {
+                assertEquals(expected.add(ksuid), set.add(ksuid));
+            }
+            assertEquals(expected.size(), set.size());
+        }
+        for(Ksuid ksuid : pool) assertEquals(expected.contains(ksuid), set.contains(ksuid));
+        Set<Ksuid> visited = new HashSet<>();
+        set.forEach(visited::add);
+        assertEquals(expected, visited);
+    }
+
+    @Test
+    public void rejectsSizesBeyondTheMaximumCapacity() {
+        assertThrows(IllegalArgumentException.class, () -> new KsuidSet(-1));
+        assertThrows(IllegalArgumentException.class, () -> new KsuidSet(KsuidHashTable.MAXIMUM_SIZE + 1));
+        assertThrows(IllegalArgumentException.class, () -> new KsuidSet(Integer.MAX_VALUE));
+    }
+
+    @Test
+    public void handlesSequentialAndZeroValues() {
+        KsuidSet set = new KsuidSet();
+        assertTrue(set.add(Ksuid.MINIMUM_KSUID));
+        assertFalse(set.add(new Ksuid(0, 0L, 0L)));
+        Ksuid ksuid = Ksuid.MINIMUM_KSUID;
+        for(int i = 0; i < 10000; i++) {
+            ksuid = MonotonicKsuidGenerator.add(ksuid, 1);
+            assertTrue(set.add(ksuid));
+        }
+        assertEquals(10001, set.size());
+        assertTrue(set.contains(Ksuid.MINIMUM_KSUID));
+        assertTrue(set.remove(Ksuid.MINIMUM_KSUID));
+        assertFalse(set.contains(Ksuid.MINIMUM_KSUID));
+        assertTrue(set.contains(ksuid));
+        set.clear();
+        assertTrue(set.isEmpty());
+        assertFalse(set.contains(ksuid));
+    }
+
+    @Test
+    public void removesBeforeCutoff() {
+        KsuidSet set = new KsuidSet();
+        byte[] entropy = new byte[Ksuid.entropyLength];
+        Random random = new Random(1);
+        for(int second = 0; second < 100; second++) {
+            for(int i = 0; i < 10; i++) {
+                random.nextBytes(entropy);
+                set.add(new Ksuid(second, entropy));
+            }
+        }
+        Ksuid kept = new Ksuid(60, new byte[Ksuid.entropyLength]);
+        set.add(kept);
+        ZonedDateTime cutoff = ZonedDateTime.ofInstant(Instant.ofEpochSecond(Ksuid.EPOCH_SECONDS + 60), ZoneOffset.UTC);
+        assertEquals(600, set.removeBefore(cutoff));
+        assertEquals(401, set.size());
+        assertTrue(set.contains(kept));
+        set.forEach(ksuid -> assertTrue(ksuid.getRawKsuidEpoch() >= 60));
+        assertEquals(0, set.removeBefore(cutoff));
+        assertEquals(401, set.removeBefore(ZonedDateTime.ofInstant(Instant.ofEpochSecond(Ksuid.EPOCH_SECONDS + (1L << 33)), ZoneOffset.UTC)));
+        assertTrue(set.isEmpty());
+    }
+}
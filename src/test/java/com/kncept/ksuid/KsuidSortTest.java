@@ -0,0 +1,102 @@
+package com.kncept.ksuid;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class KsuidSortTest {
+
+    @Test
+    public void radixSortsLikeComparisons() {
+        Random random = new Random(25);
+        for(int size : new int[] {0, 1, 10, KsuidSort.RADIX_THRESHOLD - 1, KsuidSort.RADIX_THRESHOLD, 10_000}) {
+            Ksuid[] ksuids = randomKsuids(random, size);
+            Ksuid[] expected = ksuids.clone();
+            Arrays.sort(expected);
+            KsuidSort.sort(ksuids);
+            assertArrayEquals(expected, ksuids, "size " + size);
+        }
+    }
+
+    @Test
+    public void sortsARange() {
+        Ksuid[] ksuids = randomKsuids(new Random(7), 2000);
+        Ksuid[] expected = ksuids.clone();
+        Arrays.sort(expected, 100, 1900);
+        KsuidSort.sort(ksuids, 100, 1900);
+        assertArrayEquals(expected, ksuids);
+        assertThrows(IndexOutOfBoundsException.class, () -> KsuidSort.sort(ksuids, 10, 2001));
+    }
+
+    @Test
+    public void sortsPackedArrays() {
+        Ksuid[] ksuids = randomKsuids(new Random(3), 5000);
+        KsuidArray array = new KsuidArray();
+        for(Ksuid ksuid : ksuids) array.add(ksuid);
+        KsuidSort.sort(array);
+        Arrays.sort(ksuids);
+        List<Ksuid> actual = new ArrayList<>();
+        array.forEach(actual::add);
+        assertEquals(Arrays.asList(ksuids), actual);
+    }
+
+    @Test
+    public void mergesSortedSources() {
+        Random random = new Random(11);
+        List<Ksuid> expected = new ArrayList<>();
+        List<Iterator<Ksuid>> sources = new ArrayList<>();
+        for(int source = 0; source < 7; source++) {
+            // includes empty sources, and values shared between sources
+            List<Ksuid> ksuids = new ArrayList<>(Arrays.asList(randomKsuids(random, source * 100)));
+            if (source > 1) ksuids.addAll(expected.subList(0, 5));
+            Collections.sort(ksuids);
+            expected.addAll(ksuids);
+            sources.add(ksuids.iterator());
+        }
+        Collections.sort(expected);
+
+        Iterator<Ksuid> merged = KsuidSort.merge(sources);
+        List<Ksuid> actual = new ArrayList<>();
+        merged.forEachRemaining(actual::add);
+        assertEquals(expected, actual);
+        assertThrows(NoSuchElementException.class, merged::next);
+    }
+
+    @Test
+    public void mergeEdgeCases() {
+        assertFalse(KsuidSort.merge().hasNext());
+
+        Ksuid[] ksuids = randomKsuids(new Random(5), 50);
+        Arrays.sort(ksuids);
+        List<Ksuid> actual = new ArrayList<>();
+        KsuidSort.merge(Arrays.asList(ksuids).iterator()).forEachRemaining(actual::add);
+        assertEquals(Arrays.asList(ksuids), actual);
+
+        // sources are read one ahead, so the out of order value is found while returning the one before it
+        Iterator<Ksuid> unsorted = KsuidSort.merge(Arrays.asList(ksuids[2], ksuids[0]).iterator(), Collections.emptyIterator());
+        assertThrows(IllegalStateException.class, unsorted::next);
+    }
+
+    private static Ksuid[] randomKsuids(Random random, int count) {
+        Ksuid[] ksuids = new Ksuid[count];
+        byte[] raw = new byte[Ksuid.totalLength];
+        for(int i = 0; i < count; i++) {
+            random.nextBytes(raw);
+            // a few seconds apart, so most timestamp bytes are shared, and some high bytes
+            raw[0] = 0x0F;
+            raw[1] = 0x20;
+            raw[3] = (byte) (i % 5);
+            if (i % 9 == 0) raw[3] = (byte) 0xF0;
+            ksuids[i] = i % 13 == 1 ? ksuids[i - 1] : new Ksuid(raw);
+        }
+        return ksuids;
+    }
+}
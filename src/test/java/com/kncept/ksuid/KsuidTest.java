@@ -5,11 +5,23 @@ import com.kncept.ksuid.utils.BaseCoder;
 import com.kncept.ksuid.utils.ByteConverter;
 import org.junit.jupiter.api.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.StringWriter;
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
 import java.time.Clock;
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
 import java.time.temporal.TemporalUnit;
+import java.util.Arrays;
+import java.util.Random;
 
 import static com.kncept.ksuid.Ksuid.EPOCH_SECONDS;
 import static org.junit.jupiter.api.Assertions.*;
@@ -163,4 +175,156 @@ public class KsuidTest {
         assertTrue(endUtcTime.isAfter(ksuidTime));
 
     }
+
+    @Test
+    public void encodesIntoCallerBuffers() throws Exception {
+        Ksuid ksuid = new Ksuid("0ujtsYcgvSTl8PAuAdqWYSMnLOv");
+        String base16 = "0669F7EFB5A1CD34B5F99D1154FB6853345C9735";
+
+        char[] chars = new char[Ksuid.base62Length + 2];
+        ksuid.toBase62(chars, 1);
+        assertEquals("0ujtsYcgvSTl8PAuAdqWYSMnLOv", new String(chars, 1, Ksuid.base62Length));
+        ksuid.toBase16(chars = new char[Ksuid.base16Length], 0);
+        assertEquals(base16, new String(chars));
+
+        byte[] bytes = new byte[Ksuid.base62Length + 3];
+        ksuid.toBase62(bytes, 3);
+        assertEquals("0ujtsYcgvSTl8PAuAdqWYSMnLOv", new String(bytes, 3, Ksuid.base62Length, StandardCharsets.US_ASCII));
+
+        ByteBuffer buffer = ByteBuffer.allocateDirect(100);
+        buffer.put((byte) ' ');
+        ksuid.toBase62(buffer);
+        ksuid.toBase16(buffer);
+        assertEquals(1 + Ksuid.base62Length + Ksuid.base16Length, buffer.position());
+        assertThrows(BufferOverflowException.class, () -> ksuid.toBase16(ByteBuffer.allocate(Ksuid.base16Length - 1)));
+
+        StringBuilder sb = new StringBuilder("id=");
+        ksuid.appendBase62(sb).append(',');
+        ksuid.appendBase16((Appendable) sb);
+        assertEquals("id=0ujtsYcgvSTl8PAuAdqWYSMnLOv," + base16, sb.toString());
+        assertEquals(base16, ksuid.appendBase16(new StringWriter()).toString());
+
+        buffer.flip().get();
+        assertEquals(ksuid, Ksuid.parse(buffer, Ksuid.base62Length));
+        assertEquals(ksuid, Ksuid.parse(buffer, Ksuid.base16Length));
+        assertFalse(buffer.hasRemaining());
+        assertThrows(IllegalArgumentException.class, () -> Ksuid.parse(buffer.flip(), -1));
+        assertThrows(IllegalArgumentException.class, () -> Ksuid.parse(buffer, Ksuid.base62Length - 1));
+    }
+
+    @Test
+    public void parsesWithoutStrings() {
+        Ksuid ksuid = new Ksuid("0ujtsYcgvSTl8PAuAdqWYSMnLOv");
+        StringBuilder sb = new StringBuilder("[0ujtsYcgvSTl8PAuAdqWYSMnLOv]");
+        assertEquals(ksuid, Ksuid.parse(sb, 1, sb.length() - 1));
+        assertEquals(ksuid, Ksuid.parse("0669F7EFB5A1CD34B5F99D1154FB6853345C9735"));
+        byte[] ascii = "..0ujtsYcgvSTl8PAuAdqWYSMnLOv".getBytes(StandardCharsets.US_ASCII);
+        assertEquals(ksuid, Ksuid.parse(ascii, 2, Ksuid.base62Length));
+
+        assertThrows(IllegalArgumentException.class, () -> Ksuid.parse(null));
+        assertThrows(IllegalArgumentException.class, () -> Ksuid.parse(""));
+        assertThrows(IllegalArgumentException.class, () -> Ksuid.parse(sb, 0, Ksuid.base62Length));
+        assertThrows(IndexOutOfBoundsException.class, () -> Ksuid.parse(ascii, 3, Ksuid.base62Length));
+    }
+
+    @Test
+    public void rawValueRoundTrips() {
+        byte[] raw = BaseCoder.base16Encoder.decode("0669F7EFB5A1CD34B5F99D1154FB6853345C9735");
+        Ksuid ksuid = new Ksuid(raw);
+        assertEquals(new Ksuid("0ujtsYcgvSTl8PAuAdqWYSMnLOv"), ksuid);
+        assertEquals(new Ksuid("0ujtsYcgvSTl8PAuAdqWYSMnLOv").hashCode(), ksuid.hashCode());
+        assertEquals(ksuid, new Ksuid(ksuid.getRawKsuidEpoch(), ksuid.getEntropy()));
+        assertNotEquals(ksuid, new Ksuid(ksuid.getRawKsuidEpoch() + 1, ksuid.getEntropy()));
+        assertNotEquals(ksuid, Ksuid.MAXIMUM_KSUID);
+    }
+
+    @Test
+    public void ordersLikeTheEncodedStrings() {
+        Random random = new Random(5);
+        byte[] raw = new byte[Ksuid.totalLength];
+        Ksuid[] ksuids = new Ksuid[1000];
+        for(int i = 0; i < ksuids.length; i++) {
+            random.nextBytes(raw);
+            // share prefixes, so every word of the comparison is used
+            if (i % 3 == 0) raw[0] = 0;
+            if (i % 5 == 0) for(int j = 0; j < 12; j++) raw[j] = (byte) 0x80;
+            ksuids[i] = new Ksuid(raw);
+        }
+        Ksuid[] sorted = ksuids.clone();
+        Arrays.sort(sorted);
+        String[] strings = new String[ksuids.length];
+        for(int i = 0; i < ksuids.length; i++) strings[i] = ksuids[i].toBase62();
+        Arrays.sort(strings);
+        for(int i = 0; i < ksuids.length; i++) assertEquals(strings[i], sorted[i].toBase62());
+
+        assertTrue(Ksuid.MINIMUM_KSUID.compareTo(Ksuid.MAXIMUM_KSUID) < 0);
+        assertTrue(Ksuid.COMPARATOR.compare(Ksuid.MAXIMUM_KSUID, sorted[0]) > 0);
+        assertEquals(0, sorted[0].compareTo(new Ksuid(sorted[0].toBase62())));
+    }
+
+    @Test
+    public void base62IsCached() {
+        String value = "0ujtsYcgvSTl8PAuAdqWYSMnLOv";
+        assertSame(value, new Ksuid(value).toBase62());
+        assertSame(value, Ksuid.parse(value).toString());
+        assertNotSame(value, Ksuid.parse(new StringBuilder(value)).toBase62());
+
+        Ksuid generated = new Ksuid();
+        assertSame(generated.toBase62(), generated.toBase62());
+        // parsed from base16, so encoded on demand
+        Ksuid fromBase16 = new Ksuid("0669F7EFB5A1CD34B5F99D1154FB6853345C9735");
+        assertEquals(value, fromBase16.toBase62());
+        assertSame(fromBase16.toBase62(), fromBase16.toString());
+        char[] chars = new char[Ksuid.base62Length];
+        fromBase16.toBase62(chars, 0);
+        assertEquals(value, new String(chars));
+        assertEquals(value, fromBase16.appendBase62(new StringBuilder()).toString());
+    }
+
+    @Test
+    public void tryParseReportsInvalidInputWithNull() {
+        Ksuid expected = new Ksuid("0ujtsYcgvSTl8PAuAdqWYSMnLOv");
+        assertEquals(expected, Ksuid.tryParse("0ujtsYcgvSTl8PAuAdqWYSMnLOv"));
+        assertEquals(expected, Ksuid.tryParse("0669f7efb5a1cd34b5f99d1154fb6853345c9735"));
+        byte[] ascii = "0ujtsYcgvSTl8PAuAdqWYSMnLOv".getBytes(StandardCharsets.US_ASCII);
+        assertEquals(expected, Ksuid.tryParse(ascii, 0, ascii.length));
+
+        assertNull(Ksuid.tryParse(null));
+        assertNull(Ksuid.tryParse(""));
+        assertNull(Ksuid.tryParse("0ujtsYcgvSTl8PAuAdqWYSMnLO"));
+        assertNull(Ksuid.tryParse("0ujtsYcgvSTl8PAuAdqWYSMnLO!"));
+        assertNull(Ksuid.tryParse("aWgEPTl1tmebfsQzFP4bxwgy80W"));
+        assertNull(Ksuid.tryParse(ascii, 1, ascii.length - 1));
+    }
+
+    @Test
+    public void binaryRoundTrips() throws Exception {
+        Ksuid ksuid = new Ksuid("0ujtsYcgvSTl8PAuAdqWYSMnLOv");
+        byte[] raw = BaseCoder.base16Encoder.decode("0669F7EFB5A1CD34B5F99D1154FB6853345C9735");
+
+        for(ByteOrder order: new ByteOrder[]{ByteOrder.BIG_ENDIAN, ByteOrder.LITTLE_ENDIAN}) {
+            ByteBuffer buffer = ByteBuffer.allocate(Ksuid.totalLength + 1).order(order);
+            buffer.put((byte) 7);
+            ksuid.writeTo(buffer);
+            assertFalse(buffer.hasRemaining());
+            byte[] written = new byte[Ksuid.totalLength];
+            buffer.position(1);
+            buffer.duplicate().get(written);
+            assertArrayEquals(raw, written);
+
+            assertEquals(0, ksuid.compareTo(buffer, 1));
+            assertTrue(Ksuid.MINIMUM_KSUID.compareTo(buffer, 1) < 0);
+            assertTrue(Ksuid.MAXIMUM_KSUID.compareTo(buffer, 1) > 0);
+            assertEquals(1, buffer.position());
+
+            assertEquals(ksuid, Ksuid.readFrom(buffer));
+            assertThrows(BufferUnderflowException.class, () -> Ksuid.readFrom(buffer));
+        }
+        assertThrows(BufferOverflowException.class, () -> ksuid.writeTo(ByteBuffer.allocate(Ksuid.totalLength - 1)));
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ksuid.writeTo(new DataOutputStream(bytes));
+        assertArrayEquals(raw, bytes.toByteArray());
+        assertEquals(ksuid, Ksuid.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()))));
+    }
 }
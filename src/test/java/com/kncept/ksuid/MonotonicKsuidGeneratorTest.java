@@ -0,0 +1,79 @@
+package com.kncept.ksuid;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MonotonicKsuidGeneratorTest {
+
+    @Test
+    public void incrementsWithinASecond() {
+        AtomicInteger clock = new AtomicInteger(1000);
+        MonotonicKsuidGenerator generator = fixedClock(clock);
+        Ksuid first = generator.next();
+        Ksuid second = generator.next();
+        assertEquals(MonotonicKsuidGenerator.add(first, 1), second);
+        assertEquals(1000, second.getRawKsuidEpoch());
+
+        clock.set(1001);
+        Ksuid third = generator.next();
+        assertEquals(1001, third.getRawKsuidEpoch());
+        assertTrue(third.compareTo(second) > 0);
+
+        // clock goes backwards - keep counting from the last issued value
+        clock.set(999);
+        assertEquals(MonotonicKsuidGenerator.add(third, 1), generator.next());
+    }
+
+    @Test
+    public void carriesAcrossWords() {
+        Ksuid ksuid = new Ksuid(7, 0L, -1L);
+        assertEquals(new Ksuid(7, 1L, 0L), MonotonicKsuidGenerator.add(ksuid, 1));
+        assertEquals(new Ksuid(8, 0L, 0L), MonotonicKsuidGenerator.add(new Ksuid(7, -1L, -1L), 1));
+        assertEquals(new Ksuid(7, -1L, -1L), MonotonicKsuidGenerator.add(new Ksuid(8, 0L, 0L), -1));
+        assertEquals(ksuid, MonotonicKsuidGenerator.add(new Ksuid(7, 1L, 0L), -1));
+        assertThrows(IllegalStateException.class, () -> MonotonicKsuidGenerator.add(Ksuid.MAXIMUM_KSUID, 1));
+    }
+
+    @Test
+    public void bulkGenerationIsConsecutive() {
+        MonotonicKsuidGenerator generator = fixedClock(new AtomicInteger(5));
+        Ksuid before = generator.next();
+        Ksuid[] ksuids = generator.generate(KsuidGenerator.BATCH_SIZE + 3);
+        Ksuid previous = before;
+        for(Ksuid ksuid: ksuids) {
+            assertEquals(MonotonicKsuidGenerator.add(previous, 1), ksuid);
+            previous = ksuid;
+        }
+        assertEquals(MonotonicKsuidGenerator.add(previous, 1), generator.next());
+    }
+
+    @Test
+    public void concurrentGenerationIsStrictlyIncreasingPerThread() throws Exception {
+        MonotonicKsuidGenerator generator = new MonotonicKsuidGenerator();
+        Set<Ksuid> all = ConcurrentHashMap.newKeySet();
+        AtomicInteger outOfOrder = new AtomicInteger();
+        Thread[] threads = new Thread[8];
+        for(int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(() -> {
+                Ksuid[] local = new Ksuid[10000];
+                for(int j = 0; j < local.length; j++) local[j] = generator.next();
+                for(int j = 1; j < local.length; j++) if (local[j].compareTo(local[j - 1]) <= 0) outOfOrder.incrementAndGet();
+                all.addAll(Arrays.asList(local));
+            });
+            threads[i].start();
+        }
+        for(Thread thread: threads) thread.join();
+        assertEquals(0, outOfOrder.get());
+        assertEquals(threads.length * 10000, all.size());
+    }
+
+    private static MonotonicKsuidGenerator fixedClock(AtomicInteger clock) {
+        return new MonotonicKsuidGenerator(EntropySource.defaultSource(), () -> clock.get() + (long) Ksuid.EPOCH_SECONDS);
+    }
+}
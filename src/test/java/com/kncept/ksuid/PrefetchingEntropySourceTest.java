@@ -0,0 +1,84 @@
+package com.kncept.ksuid;
+
+import com.kncept.ksuid.utils.ByteConverter;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PrefetchingEntropySourceTest {
+
+    // fills each 8 bytes with the next value of a counter, so every byte range is distinct
+    private static EntropySource counting(AtomicLong counter) {
+        return bytes -> {
+            for(int i = 0; i + 8 <= bytes.length; i += 8) ByteConverter.writeLong(bytes, i, counter.incrementAndGet());
+        };
+    }
+
+    @Test
+    public void neverHandsOutTheSameBytesTwice() throws Exception {
+        AtomicLong counter = new AtomicLong();
+        Set<Ksuid> seen = ConcurrentHashMap.newKeySet();
+        try (PrefetchingEntropySource source = new PrefetchingEntropySource(counting(counter), counting(new AtomicLong(Long.MIN_VALUE)), 256, 4)) {
+            Thread[] threads = new Thread[4];
+            for(int t = 0; t < threads.length; t++) {
+                threads[t] = new Thread(() -> {
+                    for(int i = 0; i < 20000; i++) {
+                        byte[] entropy = new byte[Ksuid.entropyLength];
+                        source.nextBytes(entropy);
+                        assertTrue(seen.add(new Ksuid(0, entropy)));
+                    }
+                });
+                threads[t].start();
+            }
+            for(Thread thread : threads) thread.join();
+        }
+        assertEquals(80000, seen.size());
+    }
+
+    @Test
+    public void servesLargeRequestsAcrossBlocks() throws Exception {
+        try (PrefetchingEntropySource source = new PrefetchingEntropySource(counting(new AtomicLong()), bytes -> fail("fallback"), 64, 8)) {
+            for(int i = 0; i < 100 && source.readyBlocks() < 8; i++) Thread.sleep(10);
+            byte[] bytes = new byte[200];
+            source.nextBytes(bytes);
+            Set<Long> values = new HashSet<>();
+            for(int i = 0; i < bytes.length; i += 8) values.add(ByteConverter.readLong(bytes, i));
+            assertEquals(25, values.size());
+            assertEquals(0, source.fallbacks());
+        }
+    }
+
+    @Test
+    public void fallsBackWhenDrained() {
+        CountDownLatch blocked = new CountDownLatch(1);
+        EntropySource stuck = bytes -> {
+            try {
+                blocked.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+        try (PrefetchingEntropySource source = new PrefetchingEntropySource(stuck, EntropySource.defaultSource(), 64, 2)) {
+            Ksuid ksuid = new KsuidGenerator(source).next();
+            assertNotEquals(0L, ksuid.entropyHigh() | ksuid.entropyLow());
+            assertEquals(1, source.fallbacks());
+        } finally {
+            blocked.countDown();
+        }
+    }
+
+    @Test
+    public void closeStopsTheFiller() throws Exception {
+        PrefetchingEntropySource source = new PrefetchingEntropySource();
+        assertTrue(source.isFilling());
+        source.close();
+        for(int i = 0; i < 100 && source.isFilling(); i++) Thread.sleep(10);
+        assertFalse(source.isFilling());
+    }
+}
@@ -3,13 +3,22 @@ package com.kncept.ksuid.utils;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
 import java.math.BigInteger;
 import java.nio.charset.Charset;
+import java.util.Base64;
+import java.util.Random;
 
 import static com.kncept.ksuid.utils.BaseCoder.alphabet_base16;
 import static com.kncept.ksuid.utils.BaseCoder.numberOfDigits;
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 public class BaseCoderTest {
     Charset utf8 = Charset.forName("UTF8");
@@ -211,4 +220,138 @@ public class BaseCoderTest {
         assertEquals(3, numberOfDigits(new BigInteger("7"), new BigInteger("2")));
         assertEquals(4, numberOfDigits(new BigInteger("8"), new BigInteger("2")));
     }
+
+    @Test
+    public void lookupTables() {
+        assertEquals(10, BaseCoder.base16Encoder.digitValue('A'));
+        assertEquals(10, BaseCoder.base16Encoder.digitValue('a'));
+        assertEquals(-1, BaseCoder.base16Encoder.digitValue('g'));
+        assertEquals(10, BaseCoder.base62Encoder.digitValue('A'));
+        assertEquals(36, BaseCoder.base62Encoder.digitValue('a'));
+        assertEquals(62, BaseCoder.base64Encoder.digitValue('+'));
+        assertEquals(-1, BaseCoder.base64Encoder.digitValue('='));
+        assertEquals(-1, BaseCoder.base62Encoder.digitValue('\u00e9'));
+
+        assertArrayEquals(BaseCoder.base16Encoder.decode("ABCDEF"), BaseCoder.base16Encoder.decode("abcdef"));
+
+        BaseCoder accented = new BaseCoder("0123456789\u00e0\u00e9\u00ee");
+        assertEquals(11, accented.digitValue('\u00e9'));
+        assertEquals(-1, accented.digitValue('\u00e8'));
+        byte[] value = {1, 2, 3, (byte) 0xFF};
+        assertArrayEquals(value, accented.decode(accented.encode(value)));
+    }
+
+    @Test
+    public void invalidCharactersFailFast() {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> BaseCoder.base62Encoder.decode("73Xp-gyMwkGr29M"));
+        assertEquals("Invalid character '-' at index 4", e.getMessage());
+        assertThrows(IllegalArgumentException.class, () -> BaseCoder.base16Encoder.decode("4G"));
+        assertThrows(IllegalArgumentException.class, () -> BaseCoder.base64Encoder.decode("TW.u"));
+    }
+
+    @Test
+    public void powerOfTwoBasesMatchNumericConversion() {
+        Random random = new Random(16);
+        for(String alphabet : new String[]{"01", "01234567", alphabet_base16, "ABCDEFGHIJKLMNOPQRSTUVWXYZ234567"}) {
+            BaseCoder baseCoder = new BaseCoder(alphabet);
+            for(int length = 1; length < 40; length++) {
+                byte[] raw = new byte[length];
+                random.nextBytes(raw);
+                if (length % 3 == 0) raw[0] = 0;
+                if (length % 4 == 0) raw[length / 2] = 0;
+                if (length % 5 == 0) raw[0] = 1;
+                byte[] digits = baseCoder.convertBase(raw, 256, alphabet.length());
+                StringBuilder expected = new StringBuilder();
+                for(byte digit : digits) expected.append(alphabet.charAt(digit));
+                String encoded = baseCoder.encode(raw);
+                assertEquals(expected.toString(), encoded);
+                assertArrayEquals(baseCoder.convertBase(digits, alphabet.length(), 256), baseCoder.decode(encoded));
+                // leading zero digits don't change the number
+                assertArrayEquals(baseCoder.decode(encoded), baseCoder.decode(alphabet.charAt(0) + encoded));
+            }
+        }
+    }
+
+    @Test
+    public void base64MatchesTheJdk() {
+        Random random = new Random(64);
+        for(int length = 0; length < 40; length++) {
+            byte[] raw = new byte[length];
+            random.nextBytes(raw);
+            if (length > 3) raw[1] = raw[2] = raw[3] = 0; // a group of zero bytes
+            String padded = Base64.getEncoder().encodeToString(raw);
+            String unpadded = Base64.getEncoder().withoutPadding().encodeToString(raw);
+            assertEquals(padded, BaseCoder.base64EncoderWithPadding.encode(raw));
+            assertEquals(unpadded, BaseCoder.base64Encoder.encode(raw));
+            assertArrayEquals(raw, BaseCoder.base64EncoderWithPadding.decode(padded));
+            assertArrayEquals(raw, BaseCoder.base64Encoder.decode(unpadded));
+        }
+        assertEquals("AAAA", BaseCoder.base64Encoder.encode(new byte[3]));
+    }
+
+    @Test
+    public void largeInputsMatchNumericConversion() {
+        Random random = new Random(17);
+        for(String alphabet : new String[]{BaseCoder.alphabet_base62, "0123456789", "012"}) {
+            BaseCoder baseCoder = new BaseCoder(alphabet);
+            int base = alphabet.length();
+            for(int length : new int[]{1, 7, 8, 9, 20, 100, 1000, 4096}) {
+                byte[] raw = new byte[length];
+                random.nextBytes(raw);
+                if (length > 20) raw[0] = raw[1] = 0;
+                byte[] digits = baseCoder.convertBase(raw, 256, base);
+                String encoded = baseCoder.encode(raw);
+                assertEquals(digits.length, encoded.length());
+                for(int i = 0; i < digits.length; i++) assertEquals(digits[i], baseCoder.digitValue(encoded.charAt(i)));
+                assertArrayEquals(baseCoder.convertBase(digits, base, 256), baseCoder.decode(encoded));
+            }
+        }
+        assertEquals("0", BaseCoder.base62Encoder.encode(new byte[1000]));
+        assertArrayEquals(new byte[]{0}, BaseCoder.base62Encoder.decode("0000000000000000000000000000000000"));
+    }
+
+    @Test
+    public void onlySmallPowersAreCached() {
+        Random random = new Random(39);
+        BaseCoder baseCoder = new BaseCoder(BaseCoder.alphabet_base62);
+        byte[] raw = new byte[16 * 1024];
+        random.nextBytes(raw);
+        assertArrayEquals(raw, baseCoder.decode(baseCoder.encode(raw)));
+        int cached = baseCoder.cachedPowers();
+
+        raw = new byte[64 * 1024];
+        random.nextBytes(raw);
+        assertArrayEquals(raw, baseCoder.decode(baseCoder.encode(raw)));
+        assertEquals(cached, baseCoder.cachedPowers());
+    }
+
+    @Test
+    public void base64Streams() throws IOException {
+        Random random = new Random(64);
+        for(BaseCoder.ByteGroupingBaseCoder baseCoder : new BaseCoder.ByteGroupingBaseCoder[]{BaseCoder.base64(), BaseCoder.base64WithPadding()}) {
+            for(int length : new int[]{0, 1, 2, 3, 4, 5, 1000, 5000}) {
+                byte[] raw = new byte[length];
+                random.nextBytes(raw);
+                StringWriter encoded = new StringWriter();
+                try (OutputStream out = baseCoder.encodingStream(encoded)) {
+                    // mix single byte and array writes
+                    int i = 0;
+                    for(; i < length / 3; i++) out.write(raw[i]);
+                    out.write(raw, i, length - i);
+                }
+                assertEquals(baseCoder.encode(raw), encoded.toString());
+
+                ByteArrayOutputStream decoded = new ByteArrayOutputStream();
+                try (InputStream in = baseCoder.decodingStream(new StringReader(encoded.toString()))) {
+                    byte[] buffer = new byte[333];
+                    int read;
+                    while ((read = in.read(buffer)) >= 0) decoded.write(buffer, 0, read);
+                }
+                assertArrayEquals(raw, decoded.toByteArray());
+            }
+        }
+        InputStream invalid = BaseCoder.base64().decodingStream(new StringReader("TW.u"));
+        assertThrows(IOException.class, () -> invalid.read(new byte[3]));
+        assertEquals(-1, BaseCoder.base64().decodingStream(new StringReader("")).read());
+    }
 }
@@ -37,6 +37,20 @@ public class ByteConverterTest {
         assertReconstruction(Integer.MIN_VALUE);
     }
 
+    @Test
+    public void readsAndWritesAtOffsets() {
+        byte[] data = new byte[13];
+        ByteConverter.writeInt(data, 1, 0x01020304);
+        ByteConverter.writeLong(data, 5, 0x05060708090A0B0CL);
+        Assertions.assertArrayEquals(new byte[]{0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12}, data);
+        assertEquals(0x01020304, ByteConverter.readInt(data, 1));
+        assertEquals(0x05060708090A0B0CL, ByteConverter.readLong(data, 5));
+
+        ByteConverter.writeLong(data, 0, -2L);
+        assertEquals(-2L, ByteConverter.readLong(data, 0));
+        assertEquals(-1, ByteConverter.readInt(data, 0));
+    }
+
 //    @Test
     public void convertsIntegerToArrayAndBackAgain() {
         Random random = new SecureRandom();